@@ -0,0 +1,112 @@
+package com.jira.timesheet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jira.timesheet.bench.Fixtures;
+
+import net.rcarz.jiraclient.Field;
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.WorkLog;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Cost of the report stage: converting the time spent to hours, writing a single row and filtering a page of issues
+ * with their worklogs into rows. The rows are written to a writer discarding them, so only the formatting is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportBenchmark {
+    /** Issues on the filtered page. */
+    @Param({ "10", "100" })
+    public int size;
+
+    /** Worklogs of every issue. */
+    @Param({ "20" })
+    public int worklogs;
+
+    /** Users the timesheet is generated for, as given on the command line. */
+    @Param({ "all", "user3" })
+    public String username;
+
+    private Set<String> authors;
+    private final Date start = new DateTime(2016, 5, 1, 0, 0).toDate();
+    private final Date end = new DateTime(2016, 6, 1, 0, 0).toDate();
+    private final StringBuilder hours = new StringBuilder();
+    private List<Issue> issues;
+    private List<List<WorkLog>> workLogs;
+    private TimesheetWriter timesheet;
+    private int row;
+
+    @Setup
+    public void setUp() throws IOException {
+        authors = TimesheetGenerator.parseUsers(username);
+        JSONObject page = (JSONObject) JSONSerializer.toJSON(Fixtures.searchPage(0, size, size, 0, 0));
+        issues = Field.getResourceArray(Issue.class, page.get("issues"), null);
+        workLogs = new ArrayList<List<WorkLog>>(size);
+        for (int i = 0; i < size; i++) {
+            JSONObject workLogPage = (JSONObject) JSONSerializer.toJSON(Fixtures.workLogPage(i, 0, worklogs, worklogs));
+            workLogs.add(Field.getResourceArray(WorkLog.class, workLogPage.get("worklogs"), null));
+        }
+        timesheet = new TimesheetWriter(new Writer() {
+            public void write(char[] cbuf, int off, int len) {
+            }
+
+            public void flush() {
+            }
+
+            public void close() {
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        timesheet.close();
+    }
+
+    @Benchmark
+    public StringBuilder toHours() {
+        hours.setLength(0);
+        return TimesheetWriter.appendHours(hours, Fixtures.timeSpentSeconds(row++ & Integer.MAX_VALUE, 0));
+    }
+
+    @Benchmark
+    public void writeRow() throws IOException {
+        int i = row++ & Integer.MAX_VALUE;
+        Issue issue = issues.get(i % size);
+        List<WorkLog> issueWorkLogs = workLogs.get(i % size);
+        timesheet.writeRow(issue, issueWorkLogs.get(i / size % issueWorkLogs.size()));
+    }
+
+    @Benchmark
+    public void filterResults() throws IOException {
+        for (int i = 0; i < size; i++) {
+            TimesheetGenerator.writeRows(authors, start, end, issues.get(i), workLogs.get(i), timesheet);
+        }
+    }
+}
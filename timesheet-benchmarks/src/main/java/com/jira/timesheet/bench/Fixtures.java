@@ -0,0 +1,306 @@
+package com.jira.timesheet.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates JIRA REST responses from the JSON recorded in the fixtures resource folder. The issue, worklog, user and
+ * history templates are taken from real responses with the identifying values replaced by ${placeholders}, so pages of
+ * any size can be produced with the field layout and value lengths of the real thing. The output is deterministic: the
+ * same arguments always give the same JSON.
+ */
+public final class Fixtures {
+    /** Number of distinct worklog authors. */
+    public static final int USERS = 20;
+    /** Number of worklogs JIRA embeds in the worklog field of an issue. */
+    public static final int EMBEDDED_WORKLOGS = 20;
+    /** ID of the first generated issue, the IDs of the others follow. */
+    public static final long FIRST_ISSUE_ID = 10000;
+    /** Key prefix of the generated issues. */
+    public static final String PROJECT_KEY = "TS";
+
+    private static final String ISSUE = load("issue.json");
+    private static final String WORKLOG = load("worklog.json");
+    private static final String USER = load("user.json");
+    private static final String HISTORY = load("history.json");
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @return Key of the issue.
+     */
+    public static String key(int issue) {
+        return PROJECT_KEY + "-" + (issue + 1);
+    }
+
+    /**
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @return ID of the issue.
+     */
+    public static String issueId(int issue) {
+        return String.valueOf(FIRST_ISSUE_ID + issue);
+    }
+
+    /**
+     * @param issueId
+     *            ID of an issue.
+     * @return Index of the issue or -1 if the ID doesn't belong to a generated issue.
+     */
+    public static int issueIndex(String issueId) {
+        try {
+            long index = Long.parseLong(issueId) - FIRST_ISSUE_ID;
+            return index >= 0 && index < Integer.MAX_VALUE ? (int) index : -1;
+        }
+        catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @param worklog
+     *            Index of the worklog within the issue, starting with 0.
+     * @return ID of the worklog, unique across issues as long as an issue has less than 100000 worklogs.
+     */
+    public static long workLogId(int issue, int worklog) {
+        return (FIRST_ISSUE_ID + issue) * 100000L + worklog;
+    }
+
+    /**
+     * @param user
+     *            Index of the user.
+     * @return Username of the user.
+     */
+    public static String username(int user) {
+        return "user" + (user % USERS);
+    }
+
+    /**
+     * Builds a page of search results.
+     *
+     * @param startAt
+     *            Index of the first issue on the page.
+     * @param size
+     *            Number of issues on the page, fewer are returned at the end of the results.
+     * @param total
+     *            Total number of issues matching the search.
+     * @param worklogs
+     *            Number of worklogs of every issue, at most {@link #EMBEDDED_WORKLOGS} of them are embedded.
+     * @param histories
+     *            Number of changelog histories of every issue, 0 when the changelog isn't expanded.
+     * @return Search response.
+     */
+    public static String searchPage(int startAt, int size, int total, int worklogs, int histories) {
+        StringBuilder json = new StringBuilder(size * (ISSUE.length() + 1024));
+        json.append("{\"expand\":\"schema,names\",\"startAt\":").append(startAt).append(",\"maxResults\":").append(size);
+        json.append(",\"total\":").append(total).append(",\"issues\":[");
+        for (int i = startAt; i < Math.min(startAt + size, total); i++) {
+            if (i > startAt) {
+                json.append(',');
+            }
+            json.append(issue(i, worklogs, histories));
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Builds an issue as returned by the search or the issue resource.
+     *
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @param worklogs
+     *            Number of worklogs of the issue, at most {@link #EMBEDDED_WORKLOGS} of them are embedded.
+     * @param histories
+     *            Number of changelog histories, 0 when the changelog isn't expanded.
+     * @return Issue JSON.
+     */
+    public static String issue(int issue, int worklogs, int histories) {
+        StringBuilder embedded = new StringBuilder();
+        int seconds = 0;
+        for (int w = 0; w < worklogs; w++) {
+            if (w < EMBEDDED_WORKLOGS) {
+                if (w > 0) {
+                    embedded.append(',');
+                }
+                embedded.append(workLog(issue, w));
+            }
+            seconds += timeSpentSeconds(issue, w);
+        }
+        String changelog = "";
+        if (histories > 0) {
+            changelog = ",\"changelog\":" + changeLog(issue, 0, histories, histories);
+        }
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("issueId", issueId(issue));
+        values.put("key", key(issue));
+        values.put("author", user(issue));
+        values.put("timeSpentTotal", String.valueOf(seconds));
+        values.put("timeSpent", formatTime(seconds));
+        values.put("worklogTotal", String.valueOf(worklogs));
+        values.put("worklogs", embedded.toString());
+        values.put("changelog", changelog);
+        return render(ISSUE, values);
+    }
+
+    /**
+     * Builds a page of the worklogs of an issue.
+     *
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @param startAt
+     *            Index of the first worklog on the page.
+     * @param size
+     *            Number of worklogs on the page, fewer are returned at the end.
+     * @param total
+     *            Total number of worklogs of the issue.
+     * @return Worklog response.
+     */
+    public static String workLogPage(int issue, int startAt, int size, int total) {
+        StringBuilder json = new StringBuilder(size * (WORKLOG.length() + 2 * USER.length()));
+        json.append("{\"startAt\":").append(startAt).append(",\"maxResults\":").append(size);
+        json.append(",\"total\":").append(total).append(",\"worklogs\":[");
+        for (int w = startAt; w < Math.min(startAt + size, total); w++) {
+            if (w > startAt) {
+                json.append(',');
+            }
+            json.append(workLog(issue, w));
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Builds a page of changelog histories in the layout of the expanded changelog field.
+     *
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @param startAt
+     *            Index of the first history on the page.
+     * @param size
+     *            Number of histories on the page, fewer are returned at the end.
+     * @param total
+     *            Total number of histories of the issue.
+     * @return Changelog JSON.
+     */
+    public static String changeLog(int issue, int startAt, int size, int total) {
+        StringBuilder json = new StringBuilder(size * (HISTORY.length() + USER.length()));
+        json.append("{\"startAt\":").append(startAt).append(",\"maxResults\":").append(size);
+        json.append(",\"total\":").append(total).append(",\"histories\":[");
+        for (int h = startAt; h < Math.min(startAt + size, total); h++) {
+            if (h > startAt) {
+                json.append(',');
+            }
+            Map<String, String> values = new HashMap<String, String>();
+            values.put("historyId", String.valueOf(workLogId(issue, h)));
+            values.put("author", user(issue + h));
+            values.put("day", day(h));
+            json.append(render(HISTORY, values));
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Builds a worklog.
+     *
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @param worklog
+     *            Index of the worklog within the issue, starting with 0.
+     * @return Worklog JSON.
+     */
+    public static String workLog(int issue, int worklog) {
+        int seconds = timeSpentSeconds(issue, worklog);
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("issueId", issueId(issue));
+        values.put("key", key(issue));
+        values.put("worklogId", String.valueOf(workLogId(issue, worklog)));
+        values.put("author", user(issue + worklog));
+        values.put("day", day(issue + worklog));
+        values.put("timeSpent", formatTime(seconds));
+        values.put("timeSpentSeconds", String.valueOf(seconds));
+        return render(WORKLOG, values);
+    }
+
+    /**
+     * @param issue
+     *            Index of the issue, starting with 0.
+     * @param worklog
+     *            Index of the worklog within the issue, starting with 0.
+     * @return Time spent by the worklog, a multiple of a quarter of an hour up to four hours.
+     */
+    public static int timeSpentSeconds(int issue, int worklog) {
+        return ((issue + worklog) % 16 + 1) * 900;
+    }
+
+    private static String user(int user) {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("user", String.valueOf(user % USERS));
+        return render(USER, values);
+    }
+
+    private static String day(int index) {
+        int day = index % 28 + 1;
+        return day < 10 ? "0" + day : String.valueOf(day);
+    }
+
+    /**
+     * Formats the time the way JIRA does, e.g. "1h 15m".
+     */
+    private static String formatTime(int seconds) {
+        int hours = seconds / 3600;
+        int minutes = seconds % 3600 / 60;
+        if (hours == 0) {
+            return minutes + "m";
+        }
+        return minutes == 0 ? hours + "h" : hours + "h " + minutes + "m";
+    }
+
+    private static String render(String template, Map<String, String> values) {
+        StringBuilder result = new StringBuilder(template.length() * 2);
+        int from = 0;
+        int start;
+        while ((start = template.indexOf("${", from)) >= 0) {
+            int end = template.indexOf('}', start);
+            String value = values.get(template.substring(start + 2, end));
+            if (value == null) {
+                throw new IllegalArgumentException("No value for " + template.substring(start, end + 1));
+            }
+            result.append(template, from, start).append(value);
+            from = end + 1;
+        }
+        return result.append(template, from, template.length()).toString();
+    }
+
+    private static String load(String name) {
+        InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name);
+        if (in == null) {
+            throw new IllegalStateException("Missing fixture " + name);
+        }
+        StringBuilder content = new StringBuilder();
+        try {
+            Reader reader = new InputStreamReader(in, "UTF-8");
+            try {
+                char[] buffer = new char[4096];
+                int read;
+                while ((read = reader.read(buffer)) > 0) {
+                    content.append(buffer, 0, read);
+                }
+            }
+            finally {
+                reader.close();
+            }
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException("Failed to read fixture " + name, ex);
+        }
+        return content.toString().trim();
+    }
+}
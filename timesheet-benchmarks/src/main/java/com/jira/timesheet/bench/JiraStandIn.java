@@ -0,0 +1,313 @@
+package com.jira.timesheet.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded stand-in for the JIRA REST API, serving the responses generated by {@link Fixtures}, so the fetch pipeline
+ * can be load tested without touching a real JIRA. It answers the search, the worklogs of an issue and an issue with
+ * its changelog:
+ *
+ * <pre>
+ * /rest/api/latest/search?jql=...&amp;startAt=0&amp;maxResults=100&amp;expand=changelog
+ * /rest/api/latest/issue/{key or id}/worklog?startAt=0&amp;maxResults=1000
+ * /rest/api/latest/issue/{key or id}?expand=changelog
+ * </pre>
+ *
+ * The JQL is ignored, every search matches all the generated issues. Point a client at {@link #getUri()}.
+ */
+public class JiraStandIn {
+    /**
+     * Stand-in settings.
+     */
+    public static final class Options {
+        /** Port to listen on, 0 for any free port. */
+        public int port = 0;
+        /** Number of issues every search finds. */
+        public int issues = 1000;
+        /** Number of worklogs of every issue. */
+        public int worklogs = 20;
+        /** Number of changelog histories of every issue. */
+        public int histories = 10;
+        /** Maximum number of issues on a search page, JIRA Cloud caps it at 100. */
+        public int searchPageSize = 100;
+        /** Maximum number of worklogs on a worklog page. */
+        public int workLogPageSize = 5000;
+        /** Time in milliseconds every response is delayed by. */
+        public long latency = 0;
+        /** Upper bound of a random time in milliseconds added to the latency. */
+        public long latencyJitter = 0;
+        /** Share of requests, between 0 and 1, answered with an error instead. */
+        public double errorRate = 0;
+        /** Status of the injected errors. */
+        public int errorStatus = 503;
+        /** Retry-After header of the injected 429 and 503 errors in seconds, no header when negative. */
+        public int retryAfter = 1;
+        /** Whether responses are gzip compressed for clients accepting it. */
+        public boolean compress = true;
+        /** Seed of the latency jitter and the error injection, so runs are repeatable. */
+        public long seed = 42;
+    }
+
+    private static final String BASE = "/rest/api/latest/";
+    private static final String CHARSET = "UTF-8";
+
+    static {
+        // Without TCP_NODELAY small responses wait for the client's delayed ACK, adding ~40ms to every request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Starts the stand-in on localhost.
+     *
+     * @param options
+     *            Stand-in settings.
+     * @throws IOException
+     *             In case the port can't be bound.
+     */
+    public JiraStandIn(Options options) throws IOException {
+        this.options = options;
+        this.random = new Random(options.seed);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.port), 0);
+        server.createContext(BASE, new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                }
+                finally {
+                    exchange.close();
+                }
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return Base URI to create a JIRA client with.
+     */
+    public String getUri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return Number of requests received, including the failed ones.
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return Number of injected errors.
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @return Number of response body bytes sent, after compression.
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Stops the stand-in, waiting a second at most for the requests in progress.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        delay();
+        if (injectError()) {
+            errors.incrementAndGet();
+            if (options.retryAfter >= 0 && (options.errorStatus == 429 || options.errorStatus == 503)) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(options.retryAfter));
+            }
+            send(exchange, options.errorStatus, "{\"errorMessages\":[\"Injected error\"],\"errors\":{}}");
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath().substring(BASE.length());
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String[] segments = path.split("/");
+        if (path.equals("search")) {
+            int startAt = getInt(query, "startAt", 0);
+            int maxResults = Math.min(getInt(query, "maxResults", 50), options.searchPageSize);
+            send(exchange, 200, Fixtures.searchPage(startAt, maxResults, options.issues, options.worklogs,
+                    getHistories(query)));
+            return;
+        }
+        if (segments.length >= 2 && segments[0].equals("issue")) {
+            int issue = findIssue(segments[1]);
+            if (issue < 0) {
+                send(exchange, 404, "{\"errorMessages\":[\"Issue does not exist or you do not have permission to see it.\"],\"errors\":{}}");
+                return;
+            }
+            if (segments.length == 2) {
+                send(exchange, 200, Fixtures.issue(issue, options.worklogs, getHistories(query)));
+                return;
+            }
+            if (segments.length == 3 && segments[2].equals("worklog")) {
+                int startAt = getInt(query, "startAt", 0);
+                int maxResults = Math.min(getInt(query, "maxResults", options.workLogPageSize), options.workLogPageSize);
+                send(exchange, 200, Fixtures.workLogPage(issue, startAt, maxResults, options.worklogs));
+                return;
+            }
+        }
+        send(exchange, 404, "{\"errorMessages\":[\"Not found: " + path + "\"],\"errors\":{}}");
+    }
+
+    private int getHistories(Map<String, String> query) {
+        String expand = query.get("expand");
+        return expand != null && expand.contains("changelog") ? options.histories : 0;
+    }
+
+    /**
+     * @return Index of the issue with the given key or ID, -1 if there's no such issue.
+     */
+    private int findIssue(String keyOrId) {
+        int index;
+        if (keyOrId.startsWith(Fixtures.PROJECT_KEY + "-")) {
+            try {
+                index = Integer.parseInt(keyOrId.substring(Fixtures.PROJECT_KEY.length() + 1)) - 1;
+            }
+            catch (NumberFormatException ex) {
+                return -1;
+            }
+        }
+        else {
+            index = Fixtures.issueIndex(keyOrId);
+        }
+        return index >= 0 && index < options.issues ? index : -1;
+    }
+
+    private void delay() {
+        long millis = options.latency;
+        if (options.latencyJitter > 0) {
+            synchronized (random) {
+                millis += (long) (random.nextDouble() * options.latencyJitter);
+            }
+        }
+        if (millis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean injectError() {
+        if (options.errorRate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < options.errorRate;
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(CHARSET);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (options.compress && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+            gzip.write(body);
+            gzip.close();
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+        bytes.addAndGet(body.length);
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> result = new HashMap<String, String>();
+        if (query == null) {
+            return result;
+        }
+        for (String param : query.split("&")) {
+            int eq = param.indexOf('=');
+            if (eq > 0) {
+                result.put(URLDecoder.decode(param.substring(0, eq), CHARSET), URLDecoder.decode(param.substring(eq + 1), CHARSET));
+            }
+        }
+        return result;
+    }
+
+    private static int getInt(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Runs the stand-in until the process is killed, the settings are taken from system properties named after the
+     * {@link Options} fields, e.g. <code>-Dstandin.port=8080 -Dstandin.latency=50 -Dstandin.errorRate=0.01</code>.
+     *
+     * @param args
+     * @throws Exception
+     *             In case the stand-in can't be started.
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        options.port = Integer.getInteger("standin.port", 8080);
+        options.issues = Integer.getInteger("standin.issues", options.issues);
+        options.worklogs = Integer.getInteger("standin.worklogs", options.worklogs);
+        options.histories = Integer.getInteger("standin.histories", options.histories);
+        options.searchPageSize = Integer.getInteger("standin.searchPageSize", options.searchPageSize);
+        options.workLogPageSize = Integer.getInteger("standin.workLogPageSize", options.workLogPageSize);
+        options.latency = Long.getLong("standin.latency", options.latency);
+        options.latencyJitter = Long.getLong("standin.latencyJitter", options.latencyJitter);
+        options.errorRate = Double.parseDouble(System.getProperty("standin.errorRate", String.valueOf(options.errorRate)));
+        options.errorStatus = Integer.getInteger("standin.errorStatus", options.errorStatus);
+        options.retryAfter = Integer.getInteger("standin.retryAfter", options.retryAfter);
+        options.compress = Boolean.parseBoolean(System.getProperty("standin.compress", String.valueOf(options.compress)));
+        options.seed = Long.getLong("standin.seed", options.seed);
+        JiraStandIn standIn = new JiraStandIn(options);
+        System.out.println("JIRA stand-in listening on " + standIn.getUri());
+    }
+}
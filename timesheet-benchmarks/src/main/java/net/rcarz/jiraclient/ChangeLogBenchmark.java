@@ -0,0 +1,62 @@
+package net.rcarz.jiraclient;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jira.timesheet.bench.Fixtures;
+
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Cost of the expanded changelog: parsing a changelog page, deserialising its histories and deserialising a whole
+ * issue fetched with expand=changelog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeLogBenchmark {
+    /** Histories in the changelog. */
+    @Param({ "10", "100", "1000" })
+    public int histories;
+
+    private String page;
+    private JSONObject changeLog;
+    private JSONObject issue;
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.changeLog(0, 0, histories, histories);
+        changeLog = (JSONObject) JSONSerializer.toJSON(page);
+        issue = (JSONObject) JSONSerializer.toJSON(Fixtures.issue(0, 5, histories));
+    }
+
+    @Benchmark
+    public Object parseTree() {
+        return JSONSerializer.toJSON(page);
+    }
+
+    @Benchmark
+    public ChangeLog deserialise() {
+        return Field.getResource(ChangeLog.class, changeLog, null);
+    }
+
+    @Benchmark
+    public Issue deserialiseIssue() {
+        return Field.getResource(Issue.class, issue, null);
+    }
+}
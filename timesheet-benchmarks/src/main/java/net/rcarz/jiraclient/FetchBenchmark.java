@@ -0,0 +1,109 @@
+package net.rcarz.jiraclient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jira.timesheet.bench.JiraStandIn;
+
+import net.rcarz.jiraclient.Issue.SearchIterator;
+
+/**
+ * End to end time of the search mode fetch pipeline against the {@link JiraStandIn}: search page by page and fetch the
+ * worklogs of every issue found on a thread pool, the way the timesheet generator does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FetchBenchmark {
+    /** Issues found by the search. */
+    @Param({ "100", "1000" })
+    public int issues;
+
+    /** Worklogs of every issue. */
+    @Param({ "20" })
+    public int worklogs;
+
+    /** Server side latency of every request in milliseconds. */
+    @Param({ "0", "20" })
+    public long latency;
+
+    /** Concurrent worklog requests. */
+    @Param({ "1", "8" })
+    public int threads;
+
+    /** Whether the stand-in gzips its responses. */
+    @Param({ "true", "false" })
+    public boolean compress;
+
+    private JiraStandIn standIn;
+    private JiraClient jira;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() throws IOException, JiraException {
+        JiraStandIn.Options options = new JiraStandIn.Options();
+        options.issues = issues;
+        options.worklogs = worklogs;
+        options.latency = latency;
+        options.compress = compress;
+        standIn = new JiraStandIn(options);
+
+        JiraClient.PoolOptions pool = new JiraClient.PoolOptions();
+        pool.maxPerRoute = threads;
+        pool.maxTotal = threads;
+        jira = new JiraClient(standIn.getUri(), null, pool);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        jira.shutdown();
+        standIn.stop();
+    }
+
+    @Benchmark
+    public int fetch() throws Exception {
+        int count = 0;
+        SearchIterator pages = jira.searchIssuePages("worklogDate >= 2016-05-01", "project,issuetype,summary", null, 100);
+        while (pages.hasNext()) {
+            List<Future<List<WorkLog>>> workLogs = new ArrayList<Future<List<WorkLog>>>();
+            for (final Issue issue : pages.next().issues) {
+                workLogs.add(executor.submit(new Callable<List<WorkLog>>() {
+                    public List<WorkLog> call() throws JiraException {
+                        return issue.getAllWorkLogs();
+                    }
+                }));
+            }
+            for (Future<List<WorkLog>> issueWorkLogs : workLogs) {
+                count += issueWorkLogs.get().size();
+            }
+        }
+        if (count != issues * worklogs) {
+            throw new IllegalStateException("Fetched " + count + " worklogs instead of " + issues * worklogs);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,82 @@
+package net.rcarz.jiraclient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jira.timesheet.bench.Fixtures;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Cost of turning a page of search results into issues, one benchmark per stage: parsing the JSON tree, deserialising
+ * every field of the issues, deserialising only the fields the timesheet searches for, and the streaming handler the
+ * search runs on the response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    /** Fields the timesheet searches for. */
+    private static final Set<String> PROJECTION = Issue.getProjection("project,issuetype,summary");
+
+    /** Issues on the page, JIRA returns 100 at most. */
+    @Param({ "10", "50", "100" })
+    public int size;
+
+    /** Worklogs of every issue, embedded in the worklog field. */
+    @Param({ "5" })
+    public int worklogs;
+
+    private String page;
+    private JSONArray issues;
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.searchPage(0, size, size, worklogs, 0);
+        issues = ((JSONObject) JSONSerializer.toJSON(page)).getJSONArray("issues");
+    }
+
+    @Benchmark
+    public Object parseTree() {
+        return JSONSerializer.toJSON(page);
+    }
+
+    @Benchmark
+    public List<Issue> deserialise() {
+        return Field.getResourceArray(Issue.class, issues, null);
+    }
+
+    @Benchmark
+    public List<Issue> deserialiseProjected() {
+        List<Issue> result = new ArrayList<Issue>(issues.size());
+        for (Object issue : issues) {
+            result.add(new Issue(null, (JSONObject) issue, PROJECTION));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Issue.SearchResult stream() throws IOException {
+        return new Issue.SearchResultHandler(null, PROJECTION).handle(JsonStream.FACTORY.createParser(page));
+    }
+}
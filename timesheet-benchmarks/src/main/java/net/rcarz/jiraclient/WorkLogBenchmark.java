@@ -0,0 +1,62 @@
+package net.rcarz.jiraclient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jira.timesheet.bench.Fixtures;
+
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Cost of turning a page of the worklog resource into worklogs: parsing the JSON tree, deserialising the worklogs
+ * through {@link Field#getResourceArray} and the streaming handler {@link Issue#getAllWorkLogs()} runs on the response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkLogBenchmark {
+    /** Worklogs on the page. */
+    @Param({ "20", "100", "1000" })
+    public int size;
+
+    private String page;
+    private Object worklogs;
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.workLogPage(0, 0, size, size);
+        worklogs = ((JSONObject) JSONSerializer.toJSON(page)).get("worklogs");
+    }
+
+    @Benchmark
+    public Object parseTree() {
+        return JSONSerializer.toJSON(page);
+    }
+
+    @Benchmark
+    public List<WorkLog> deserialise() {
+        return Field.getResourceArray(WorkLog.class, worklogs, null);
+    }
+
+    @Benchmark
+    public List<WorkLog> stream() throws IOException {
+        return new Issue.WorkLogsHandler(null).handle(JsonStream.FACTORY.createParser(page)).workLogs;
+    }
+}
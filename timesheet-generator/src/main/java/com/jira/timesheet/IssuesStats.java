@@ -1,61 +1,220 @@
 package com.jira.timesheet;
 
-import java.util.Calendar;
-import java.util.Date;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
-import org.apache.commons.lang.time.DateUtils;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.DateTimeZone;
 
 import net.rcarz.jiraclient.Issue;
 import net.rcarz.jiraclient.WorkLog;
 
 /**
- * Issues statistics for one date in calendar.
- * 
+ * Issues statistics by user and date in calendar, for all users and dates at once. Every user and date pair is a cell
+ * with the logged seconds and the issues worked on. The cells are stored in columns of primitive arrays: dates are
+ * days since the epoch, users and issue keys are interned to ints, and an issue already counted for a cell is found in
+ * O(1) through a {@link LongLongMap}, so a whole team-month is accumulated in one pass over its worklogs.
+ *
  * @author Maros Vranec
  */
 public class IssuesStats {
-    /** Found issues for this stats date. */
-    private final Set<String> issues = new LinkedHashSet<String>();
-    /** Logged work in seconds for this date. */
-    private int seconds;
+    private final DateTimeZone zone;
+
+    /** Interned usernames and issue keys. */
+    private final Names users = new Names();
+    private final Names issues = new Names();
+
+    /** Cell index plus one by user and epoch day. */
+    private final LongLongMap cellIndex = new LongLongMap(1024);
+    /** Cells already holding an issue, by cell and issue. */
+    private final LongLongMap cellIssues = new LongLongMap(1024);
+
+    /** Cell columns. */
+    private int cells;
+    private int[] cellUser = new int[256];
+    private int[] cellDay = new int[256];
+    private long[] cellSeconds = new long[256];
+    private int[] cellFirstEntry = new int[256];
+    private int[] cellLastEntry = new int[256];
+
+    /** Issues of the cells, linked in the order they were added. */
+    private int entries;
+    private int[] entryIssue = new int[256];
+    private int[] entryNext = new int[256];
 
     /**
-     * Add an issue to this date statistics.
-     * 
-     * @param date
-     *            Date for determining the logged seconds.
+     * Uses the default time zone for the dates.
+     */
+    public IssuesStats() {
+        this(DateTimeZone.getDefault());
+    }
+
+    /**
+     * @param zone
+     *            Time zone the dates are taken in.
+     */
+    public IssuesStats(DateTimeZone zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Adds all the embedded worklogs of an issue, each to the date it was started on. Adding an issue twice counts its
+     * work twice.
+     *
      * @param issue
      *            Issue to be added.
+     */
+    public void addIssue(Issue issue) {
+        for (WorkLog workLog : issue.getWorkLogs()) {
+            addWorkLog(workLog.getAuthor().getName(), issue.getKey(), getEpochDay(workLog.getStarted().getTime()),
+                    workLog.getTimeSpentSeconds());
+        }
+    }
+
+    /**
+     * Adds logged work to the statistics of a user and date.
+     *
      * @param username
-     *            Username to find out logged work.
+     *            User who logged the work.
+     * @param issueKey
+     *            Issue the work was logged to.
+     * @param epochDay
+     *            Date of the work as days since the epoch, see {@link #getEpochDay(long)}.
+     * @param seconds
+     *            Logged work in seconds.
      */
-    public void addIssue(Date date, Issue issue, String username) {
-        if (issues.contains(issue.getKey())) {
-            return;
+    public void addWorkLog(String username, String issueKey, int epochDay, long seconds) {
+        int cell = cell(users.intern(username), epochDay);
+        cellSeconds[cell] += seconds;
+
+        int issue = issues.intern(issueKey);
+        long key = LongLongMap.key(cell, issue);
+        if (cellIssues.get(key) == 0) {
+            cellIssues.add(key, 1);
+            addEntry(cell, issue);
         }
-        issues.add(issue.getKey());
-        for (WorkLog workLog : issue.getWorkLogs()) {
-            if (workLog.getAuthor().getName().equals(username)) {
-                if (date.equals(DateUtils.truncate(workLog.getStarted(), Calendar.DATE))) {
-                    seconds += workLog.getTimeSpentSeconds();
-                }
+    }
+
+    /**
+     * @param millis
+     *            Time in milliseconds since the epoch.
+     * @return Date of the time in the time zone of the statistics, as days since the epoch.
+     */
+    public int getEpochDay(long millis) {
+        return (int) Math.floorDiv(zone.convertUTCToLocal(millis), (long) DateTimeConstants.MILLIS_PER_DAY);
+    }
+
+    /**
+     * @return Number of user and date pairs with logged work.
+     */
+    public int size() {
+        return cells;
+    }
+
+    /**
+     * @return Indexes of the cells sorted by username and date.
+     */
+    public int[] getSortedCells() {
+        List<Integer> order = new ArrayList<Integer>(cells);
+        for (int i = 0; i < cells; i++) {
+            order.add(i);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                int result = users.get(cellUser[a]).compareTo(users.get(cellUser[b]));
+                return result != 0 ? result : Integer.compare(cellDay[a], cellDay[b]);
             }
+        });
+        int[] result = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            result[i] = order.get(i);
         }
+        return result;
+    }
+
+    /**
+     * @param cell
+     *            Cell index.
+     * @return User of the cell.
+     */
+    public String getUsername(int cell) {
+        return users.get(cellUser[cell]);
+    }
+
+    /**
+     * @param cell
+     *            Cell index.
+     * @return Date of the cell as days since the epoch.
+     */
+    public int getCellDay(int cell) {
+        return cellDay[cell];
     }
 
     /**
-     * @return Found issues for this stats date.
+     * @param cell
+     *            Cell index.
+     * @return Found issues for the cell, comma separated in the order they were added.
      */
-    public String getIssues() {
-        return issues.toString().replace("[", "").replace("]", "");
+    public String getIssues(int cell) {
+        StringBuilder result = new StringBuilder();
+        for (int entry = cellFirstEntry[cell]; entry >= 0; entry = entryNext[entry]) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(issues.get(entryIssue[entry]));
+        }
+        return result.toString();
     }
 
     /**
-     * @return Logged work in seconds for this date.
+     * @param cell
+     *            Cell index.
+     * @return Logged work in seconds for the cell.
      */
-    public int getLoggedSecondsOfWork() {
-        return seconds;
+    public long getLoggedSecondsOfWork(int cell) {
+        return cellSeconds[cell];
+    }
+
+    private int cell(int user, int epochDay) {
+        long key = LongLongMap.key(user, epochDay);
+        long index = cellIndex.get(key);
+        if (index > 0) {
+            return (int) index - 1;
+        }
+        if (cells == cellUser.length) {
+            int capacity = cells * 2;
+            cellUser = Arrays.copyOf(cellUser, capacity);
+            cellDay = Arrays.copyOf(cellDay, capacity);
+            cellSeconds = Arrays.copyOf(cellSeconds, capacity);
+            cellFirstEntry = Arrays.copyOf(cellFirstEntry, capacity);
+            cellLastEntry = Arrays.copyOf(cellLastEntry, capacity);
+        }
+        int cell = cells++;
+        cellUser[cell] = user;
+        cellDay[cell] = epochDay;
+        cellFirstEntry[cell] = -1;
+        cellLastEntry[cell] = -1;
+        cellIndex.add(key, cell + 1);
+        return cell;
+    }
+
+    private void addEntry(int cell, int issue) {
+        if (entries == entryIssue.length) {
+            entryIssue = Arrays.copyOf(entryIssue, entries * 2);
+            entryNext = Arrays.copyOf(entryNext, entries * 2);
+        }
+        int entry = entries++;
+        entryIssue[entry] = issue;
+        entryNext[entry] = -1;
+        if (cellLastEntry[cell] >= 0) {
+            entryNext[cellLastEntry[cell]] = entry;
+        }
+        else {
+            cellFirstEntry[cell] = entry;
+        }
+        cellLastEntry[cell] = entry;
     }
 }
@@ -0,0 +1,134 @@
+package com.jira.timesheet;
+
+import java.util.Arrays;
+
+/**
+ * Map of long keys to long sums, stored in two parallel arrays with open addressing, so adding to a sum allocates
+ * nothing. Two int keys can be combined into one with {@link #key(int, int)}.
+ */
+public class LongLongMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    public LongLongMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize
+     *            Number of keys the map holds without growing.
+     */
+    public LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Combines two int keys into one long key.
+     *
+     * @param high
+     *            First key.
+     * @param low
+     *            Second key.
+     * @return Combined key, {@link #high(long)} and {@link #low(long)} split it again.
+     */
+    public static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    public static int high(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int low(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Adds to the sum of a key, a missing key starts at 0.
+     *
+     * @param key
+     *            Key, anything but {@link Long#MIN_VALUE}.
+     * @param delta
+     *            Value to add.
+     */
+    public void add(long key, long delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Long.MIN_VALUE can't be used as a key");
+        }
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+        }
+        values[slot] += delta;
+    }
+
+    /**
+     * @param key
+     *            Key.
+     * @return Sum of the key, 0 for a missing key.
+     */
+    public long get(long key) {
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * @return Number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return All keys in ascending order.
+     */
+    public long[] sortedKeys() {
+        long[] result = new long[size];
+        int i = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @return Slot holding the key or the empty slot it would be put in.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
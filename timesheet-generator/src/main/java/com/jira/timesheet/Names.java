@@ -0,0 +1,38 @@
+package com.jira.timesheet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Names interned to consecutive ints, so tables can be keyed by ints and the names looked up again when written.
+ */
+public class Names {
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final List<String> names = new ArrayList<String>();
+
+    /**
+     * @param name
+     *            Name to be interned.
+     * @return ID of the name, the next free one when the name is new.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /**
+     * @param id
+     *            ID returned by {@link #intern(String)}.
+     * @return The interned name.
+     */
+    public String get(int id) {
+        return names.get(id);
+    }
+}
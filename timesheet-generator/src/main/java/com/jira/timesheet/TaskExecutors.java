@@ -0,0 +1,178 @@
+package com.jira.timesheet;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executors for the fetch tasks of the generator. Virtual threads are only available from Java 21 on while the
+ * generator is built for Java 8, so their executor is looked up by reflection and missing when the JVM is older.
+ */
+public final class TaskExecutors {
+    /** Permits held by the task running on the current thread. */
+    private static final ThreadLocal<Semaphore> HELD = new ThreadLocal<Semaphore>();
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @return Whether the JVM has virtual threads.
+     */
+    public static boolean hasVirtualThreads() {
+        try {
+            java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        }
+        catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return Executor starting a new virtual thread for every task, null if the JVM has no virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Bounds the number of tasks running at once on an executor that doesn't bound them itself, such as one starting a
+     * virtual thread per task. A task waits for a permit on its own thread, which costs next to nothing on a virtual
+     * thread. A task waiting for a future of such an executor gives its permit back until the future is done, so tasks
+     * may wait for each other without running out of permits.
+     *
+     * @param executor
+     *            Executor running the tasks.
+     * @param permits
+     *            Permits shared by all the executors the tasks are bounded across.
+     * @return Executor running a task only while it holds a permit.
+     */
+    public static ExecutorService withPermits(ExecutorService executor, Semaphore permits) {
+        return new PermitExecutorService(executor, permits);
+    }
+
+    private static final class PermitExecutorService extends AbstractExecutorService {
+        private final ExecutorService executor;
+        private final Semaphore permits;
+
+        private PermitExecutorService(ExecutorService executor, Semaphore permits) {
+            this.executor = executor;
+            this.permits = permits;
+        }
+
+        public void execute(final Runnable task) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        permits.acquire();
+                    }
+                    catch (InterruptedException ex) {
+                        // shut down while waiting, the task never runs
+                        if (task instanceof Future) {
+                            ((Future<?>) task).cancel(false);
+                        }
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    HELD.set(permits);
+                    try {
+                        task.run();
+                    }
+                    finally {
+                        HELD.remove();
+                        permits.release();
+                    }
+                }
+            });
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+            return new PermitFutureTask<T>(callable);
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+            return new PermitFutureTask<T>(runnable, value);
+        }
+
+        public void shutdown() {
+            executor.shutdown();
+        }
+
+        public List<Runnable> shutdownNow() {
+            return executor.shutdownNow();
+        }
+
+        public boolean isShutdown() {
+            return executor.isShutdown();
+        }
+
+        public boolean isTerminated() {
+            return executor.isTerminated();
+        }
+
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return executor.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * Future whose waiters give back the permit of the task they run meanwhile, so a task waiting for another can't hold
+     * the permit the other one needs.
+     */
+    private static final class PermitFutureTask<T> extends FutureTask<T> {
+        private PermitFutureTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        private PermitFutureTask(Runnable runnable, T value) {
+            super(runnable, value);
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            Semaphore held = HELD.get();
+            if (held == null || isDone()) {
+                return super.get();
+            }
+            held.release();
+            try {
+                return super.get();
+            }
+            finally {
+                held.acquireUninterruptibly();
+            }
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            Semaphore held = HELD.get();
+            if (held == null || isDone()) {
+                return super.get(timeout, unit);
+            }
+            held.release();
+            try {
+                return super.get(timeout, unit);
+            }
+            finally {
+                held.acquireUninterruptibly();
+            }
+        }
+    }
+}
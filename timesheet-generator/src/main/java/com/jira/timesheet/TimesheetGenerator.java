@@ -1,29 +1,78 @@
 package com.jira.timesheet;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.client.HttpClient;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.ssl.TrustStrategy;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.joda.time.LocalDate;
 
 import net.rcarz.jiraclient.BasicCredentials;
 import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.Issue.SearchIterator;
 import net.rcarz.jiraclient.Issue.SearchResult;
 import net.rcarz.jiraclient.JiraClient;
 import net.rcarz.jiraclient.JiraException;
 import net.rcarz.jiraclient.WorkLog;
 
 public class TimesheetGenerator {
+    /** Number of issues requested per search page; Jira Cloud caps it at 100. */
+    private static final int PAGE_SIZE = 100;
+    /** Number of issues whose worklogs are fetched concurrently, set by -Dtimesheet.threads=N. */
+    private static final int THREADS = Integer.getInteger("timesheet.threads", 8);
+    /**
+     * Whether the fetch tasks run on virtual threads, set by -Dtimesheet.threadMode=virtual|platform. Virtual threads need
+     * Java 21, on older JVMs the platform thread pools are used.
+     */
+    private static final boolean VIRTUAL_THREADS = System.getProperty("timesheet.threadMode", "platform").equalsIgnoreCase("virtual");
+    /**
+     * Number of fetch tasks running at once: -Dtimesheet.maxConcurrency=N on virtual threads, the thread count otherwise.
+     * The connection pool and the rate limiter of the client are sized to it.
+     */
+    private static final int CONCURRENCY = Math.max(VIRTUAL_THREADS && TaskExecutors.hasVirtualThreads()
+        ? Integer.getInteger("timesheet.maxConcurrency", THREADS) : THREADS, 1);
+    /** Permits of the fetch tasks running on virtual threads, shared by the issue and the page fetches. */
+    private static final Semaphore PERMITS = new Semaphore(CONCURRENCY);
+    /**
+     * How worklogs are found, set by -Dtimesheet.mode. "search" runs a worklogDate JQL search and fetches the worklogs
+     * of every issue found, "bulk" asks for the worklogs updated since the start date and fetches them by ID in bulk,
+     * "cache" does the same but only for worklogs changed since the previous run and keeps the rest in a local file,
+     * "sharded" splits the worklogDate search into date range shards searched concurrently, "users" splits it into
+     * searches for groups of the listed users, "embedded" is the "search" mode taking the worklogs embedded in the search
+     * results and fetching them only for issues with more worklogs than embedded.
+     */
+    private static final String MODE = System.getProperty("timesheet.mode", "search");
+    /** Days covered by one search of the "sharded" mode, set by -Dtimesheet.shard=day|week. */
+    private static final int SHARD_DAYS = System.getProperty("timesheet.shard", "week").equalsIgnoreCase("day") ? 1 : 7;
+    /** Users searched for by one search of the "users" mode, set by -Dtimesheet.usersPerShard=N. */
+    private static final int USERS_PER_SHARD = Integer.getInteger("timesheet.usersPerShard", 10);
+    /** Whether the summary tables are written next to the timesheet, disabled by -Dtimesheet.summary=false. */
+    private static final boolean SUMMARY = Boolean.parseBoolean(System.getProperty("timesheet.summary", "true"));
+    /** Worklog cache file of the "cache" mode, set by -Dtimesheet.cache=path. */
+    private static final String CACHE_FILE = System.getProperty("timesheet.cache", "timesheet-cache.json");
+
     /**
      * Starting point of the application.
      * 
@@ -44,13 +93,27 @@ public class TimesheetGenerator {
         String users = args.length > 4 ? args[4] : "all";
         String endDate = args.length > 5 ? (args[5].contains("\"") ? args[5] : "\"" + args[5] + "\"") : "now()";
 
+        JiraClient jira = null;
         try {
-            JiraClient jira = prepareJiraClient(username, password);
-            String timesheet = parseTimesheet(jira, users, startDate, endDate);
+            jira = prepareJiraClient(username, password);
+            File file = new File(filePath);
+            System.out.println("Writing as file: " + file.getAbsolutePath());
+            TimesheetSummary summary = SUMMARY ? new TimesheetSummary() : null;
+            TimesheetWriter timesheet = new TimesheetWriter(file, summary);
+            try {
+                parseTimesheet(jira, users, startDate, endDate, timesheet);
+            }
+            finally {
+                timesheet.close();
+            }
+            if (summary != null) {
+                for (File summaryFile : summary.write(file)) {
+                    System.out.println("Writing summary as file: " + summaryFile.getAbsolutePath());
+                }
+            }
             System.out.println();
-            System.out.println("Saving to CSV...");
-            saveStringAsFile(timesheet, filePath);
-            // System.out.println();
+            System.out.println("Received " + jira.getRestClient().getReceivedBytes() + " bytes, "
+                    + jira.getRestClient().getDecodedBytes() + " after decompression");
             System.out.println("TIMESHEET GENERATED SUCCESSFULLY");
         }
         catch (JiraException ex) {
@@ -65,9 +128,14 @@ public class TimesheetGenerator {
             if (ex.getCause() != null)
                 System.err.println(ex.getCause().getMessage());
         }
+        finally {
+            if (jira != null) {
+                jira.shutdown();
+            }
+        }
     }
 
-    private static String parseTimesheet(JiraClient jira, String username, String startDate, String endDate) throws JiraException, ParseException {
+    private static void parseTimesheet(JiraClient jira, String username, String startDate, String endDate, TimesheetWriter timesheet) throws JiraException, IOException, ParseException {
         Date start = parseDate(startDate);
         Date end = new Date();
         String jql = "worklogDate >= " + startDate;
@@ -75,37 +143,339 @@ public class TimesheetGenerator {
             jql += " and worklogDate <= " + endDate;
             end = parseDate(endDate);
         }
+        String authorClause = "";
         if (!username.equalsIgnoreCase("all")) {
-            jql += " and (worklogAuthor  in ( " + username + " ))";
+            authorClause = " and (worklogAuthor  in ( " + username + " ))";
+        }
+        Set<String> authors = parseUsers(username);
+        if (MODE.equalsIgnoreCase("bulk")) {
+            parseUpdatedWorkLogs(jira, authors, start, end, timesheet);
+            return;
+        }
+        if (MODE.equalsIgnoreCase("cache")) {
+            parseCachedWorkLogs(jira, authors, start, end, timesheet);
+            return;
         }
+        if (MODE.equalsIgnoreCase("sharded")) {
+            parseShardedWorkLogs(jira, authors, start, end, planDateShards(start, end, SHARD_DAYS, authorClause), timesheet);
+            return;
+        }
+        if (MODE.equalsIgnoreCase("users") && authors != null) {
+            parseShardedWorkLogs(jira, authors, start, end, planUserShards(jql, username, USERS_PER_SHARD), timesheet);
+            return;
+        }
+        jql += authorClause;
         System.out.println("Searching for issues by JQL: " + jql + "...");
         // SearchResult result = jira.searchIssues(jql, countLoggedWork ? "*all,-comment" : "summary", "changelog", 1000, 0);
-        SearchResult result = jira.searchIssues(jql, "project,issuetype,summary", null, 10000, 0);
-        StringBuilder issues = filterResults(username, start, end, result);
-        return issues.toString();
-    }
-
-    private static StringBuilder filterResults(String username, Date start, Date end, SearchResult result) throws JiraException {
-        System.out.println("Parsing " + result.issues.size() + " issues");
-        StringBuilder issues = new StringBuilder();
-        issues.append("Project\tType\tKey\tTitle\tUsername\tTime Spent\tDate\n");
-        for (Issue issue : result.issues) {
-            for (WorkLog workLog : issue.getAllWorkLogs()) {
-                if (username.equalsIgnoreCase("all") || (username.toLowerCase().contains(workLog.getAuthor().getName().toLowerCase()))) {
-                    if (workLog.getCreatedDate().compareTo(start) >= 0 && workLog.getCreatedDate().before(end)) {
-                        // System.out.println(issue);
-                        issues.append(issue.getProject().getName()).append("\t");
-                        issues.append(issue.getIssueType().getName()).append("\t");
-                        issues.append(issue).append("\t");
-                        issues.append(issue.getSummary()).append("\t");
-                        issues.append(workLog.getAuthor()).append("\t");
-                        issues.append(toHours(workLog.getTimeSpent())).append("\t");
-                        issues.append(new SimpleDateFormat("MM/dd/yyyy").format(workLog.getCreatedDate())).append("\n");
+        String fields = MODE.equalsIgnoreCase("embedded") ? "project,issuetype,summary,worklog" : "project,issuetype,summary";
+        SearchIterator pages = jira.searchIssuePages(jql, fields, null, PAGE_SIZE);
+        ExecutorService executor = newExecutor();
+        ExecutorService pageExecutor = newPageExecutor();
+        try {
+            while (pages.hasNext()) {
+                filterResults(authors, start, end, pages.next(), timesheet, executor, pageExecutor);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            pageExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Finds the worklogs through the bulk worklog API: one paged request for the IDs of worklogs updated since the start
+     * date, one request per thousand worklogs and one search per page of their issues. A worklog in the range that was
+     * last updated before the start date is missed: one logged ahead with a future start date and not edited since. The
+     * cache mode shares this limitation for its first sync. Use the search mode when such worklogs must be reported.
+     */
+    private static void parseUpdatedWorkLogs(JiraClient jira, Set<String> authors, Date start, Date end, TimesheetWriter timesheet) throws JiraException, IOException {
+        System.out.println("Searching for worklogs updated since " + start + "...");
+        WorkLog.ChangedIds updated = jira.getUpdatedWorkLogIds(start.getTime());
+        System.out.println("Fetching " + updated.ids.size() + " worklogs");
+        Map<String, List<WorkLog>> workLogsByIssue = new LinkedHashMap<String, List<WorkLog>>();
+        for (WorkLog workLog : jira.getWorkLogs(updated.ids)) {
+            if (isReported(authors, start, end, workLog)) {
+                List<WorkLog> workLogs = workLogsByIssue.get(workLog.getIssueId());
+                if (workLogs == null) {
+                    workLogs = new ArrayList<WorkLog>();
+                    workLogsByIssue.put(workLog.getIssueId(), workLogs);
+                }
+                workLogs.add(workLog);
+            }
+        }
+        List<String> issueIds = new ArrayList<String>(workLogsByIssue.keySet());
+        for (int i = 0; i < issueIds.size(); i += PAGE_SIZE) {
+            SearchIterator pages = searchIssuesById(jira, issueIds.subList(i, Math.min(i + PAGE_SIZE, issueIds.size())));
+            while (pages.hasNext()) {
+                SearchResult result = pages.next();
+                System.out.println("Parsing " + result.issues.size() + " issues (" + Math.min(i + PAGE_SIZE, issueIds.size()) + " of " + issueIds.size() + ")");
+                for (Issue issue : result.issues) {
+                    writeRows(authors, start, end, issue, workLogsByIssue.get(issue.getId()), timesheet);
+                }
+            }
+        }
+    }
+
+    /**
+     * Like the bulk mode, but asks only for the worklogs changed since the previous run and takes the others from the
+     * local cache. The cache is saved before the timesheet is built, so an interrupted export doesn't lose the sync.
+     */
+    private static void parseCachedWorkLogs(JiraClient jira, Set<String> authors, Date start, Date end, TimesheetWriter timesheet) throws JiraException, IOException {
+        WorkLogCache cache = new WorkLogCache(new File(CACHE_FILE));
+        try {
+            cache.load();
+        }
+        catch (IOException ex) {
+            throw new JiraException("Failed to load worklog cache " + CACHE_FILE, ex);
+        }
+        long since = cache.getSyncStart(start);
+        System.out.println("Synchronizing " + cache.size() + " cached worklogs changed since " + new Date(since) + "...");
+        WorkLog.ChangedIds deleted = jira.getDeletedWorkLogIds(since);
+        WorkLog.ChangedIds updated = jira.getUpdatedWorkLogIds(since);
+        for (Long id : deleted.ids) {
+            cache.removeWorkLog(String.valueOf(id));
+        }
+        Set<String> touchedIssueIds = new LinkedHashSet<String>();
+        for (WorkLog workLog : jira.getWorkLogs(updated.ids)) {
+            cache.putWorkLog(workLog);
+            touchedIssueIds.add(workLog.getIssueId());
+        }
+        System.out.println("Fetched " + updated.ids.size() + " changed and " + deleted.ids.size() + " deleted worklogs");
+        List<String> issueIds = new ArrayList<String>(touchedIssueIds);
+        for (int i = 0; i < issueIds.size(); i += PAGE_SIZE) {
+            SearchIterator pages = searchIssuesById(jira, issueIds.subList(i, Math.min(i + PAGE_SIZE, issueIds.size())));
+            while (pages.hasNext()) {
+                for (Issue issue : pages.next().issues) {
+                    cache.putIssue(issue);
+                }
+            }
+        }
+        cache.setSynced(start, Math.min(deleted.until, updated.until));
+        try {
+            cache.save();
+        }
+        catch (IOException ex) {
+            throw new JiraException("Failed to save worklog cache " + CACHE_FILE, ex);
+        }
+        for (String issueId : cache.getIssueIds()) {
+            Issue issue = cache.getIssue(issueId, jira.getRestClient());
+            if (issue != null) {
+                writeRows(authors, start, end, issue, cache.getWorkLogs(issueId, jira.getRestClient()), timesheet);
+            }
+        }
+    }
+
+    /**
+     * Searches the shards concurrently, each page by page. An issue with work logged in several shards is found by each
+     * of them, so the shards are consumed in order and an issue's worklogs are fetched only by the first shard that
+     * found it.
+     */
+    private static void parseShardedWorkLogs(final JiraClient jira, Set<String> authors, Date start, Date end, List<String> shards, TimesheetWriter timesheet) throws JiraException, IOException {
+        System.out.println("Searching for issues in " + shards.size() + " shards...");
+        ExecutorService executor = newExecutor();
+        ExecutorService pageExecutor = newPageExecutor();
+        try {
+            List<Future<List<Issue>>> shardIssues = new ArrayList<Future<List<Issue>>>(shards.size());
+            for (final String jql : shards) {
+                shardIssues.add(executor.submit(new Callable<List<Issue>>() {
+                    public List<Issue> call() throws JiraException {
+                        List<Issue> issues = new ArrayList<Issue>();
+                        SearchIterator pages = jira.searchIssuePages(jql, "project,issuetype,summary", null, PAGE_SIZE);
+                        while (pages.hasNext()) {
+                            issues.addAll(pages.next().issues);
+                        }
+                        return issues;
+                    }
+                }));
+            }
+            Set<String> keys = new HashSet<String>();
+            for (int i = 0; i < shards.size(); i++) {
+                List<Issue> issues = new ArrayList<Issue>();
+                for (Issue issue : await(shardIssues.get(i), "issues by JQL: " + shards.get(i))) {
+                    if (keys.add(issue.getKey())) {
+                        issues.add(issue);
                     }
                 }
+                System.out.println("Parsing " + issues.size() + " new issues of shard " + (i + 1) + " of " + shards.size());
+                writeIssues(authors, start, end, issues, timesheet, executor, pageExecutor);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            pageExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the worklogDate range into shards of the given number of days.
+     *
+     * @return JQL of every shard, the last one ends on the day of the end date.
+     */
+    private static List<String> planDateShards(Date start, Date end, int shardDays, String authorClause) {
+        List<String> shards = new ArrayList<String>();
+        LocalDate last = LocalDate.fromDateFields(end);
+        for (LocalDate from = LocalDate.fromDateFields(start); !from.isAfter(last); from = from.plusDays(shardDays)) {
+            LocalDate to = from.plusDays(shardDays - 1);
+            if (to.isAfter(last)) {
+                to = last;
+            }
+            shards.add("worklogDate >= \"" + from + "\" and worklogDate <= \"" + to + "\"" + authorClause);
+        }
+        return shards;
+    }
+
+    /**
+     * Splits the listed users into groups searched separately, so no search carries a huge worklogAuthor clause.
+     *
+     * @return JQL of every shard.
+     */
+    private static List<String> planUserShards(String jql, String username, int usersPerShard) {
+        List<String> users = new ArrayList<String>();
+        for (String user : username.split(",")) {
+            if (!user.trim().isEmpty()) {
+                users.add(user.trim());
+            }
+        }
+        List<String> shards = new ArrayList<String>();
+        for (int i = 0; i < users.size(); i += Math.max(usersPerShard, 1)) {
+            List<String> group = users.subList(i, Math.min(i + Math.max(usersPerShard, 1), users.size()));
+            shards.add(jql + " and (worklogAuthor in (" + StringUtils.join(group, ",") + "))");
+        }
+        return shards;
+    }
+
+    /**
+     * @param username
+     *            Comma separated usernames as given on the command line, or "all".
+     * @return Lower case usernames without quotes, or null when all users are reported.
+     */
+    static Set<String> parseUsers(String username) {
+        if (username.equalsIgnoreCase("all")) {
+            return null;
+        }
+        Set<String> users = new HashSet<String>();
+        for (String user : username.split(",")) {
+            user = user.replace("\"", "").replace("'", "").trim();
+            if (!user.isEmpty()) {
+                users.add(user.toLowerCase());
+            }
+        }
+        return users;
+    }
+
+    private static SearchIterator searchIssuesById(JiraClient jira, List<String> issueIds) {
+        String jql = "id in (" + StringUtils.join(issueIds, ",") + ")";
+        return jira.searchIssuePages(jql, "project,issuetype,summary", null, PAGE_SIZE);
+    }
+
+    private static void filterResults(Set<String> authors, Date start, Date end, SearchResult result, TimesheetWriter timesheet, ExecutorService executor, ExecutorService pageExecutor) throws JiraException, IOException {
+        System.out.println("Parsing " + result.issues.size() + " issues (" + (result.start + result.issues.size()) + " of " + result.total + ")");
+        writeIssues(authors, start, end, result.issues, timesheet, executor, pageExecutor);
+    }
+
+    private static void writeIssues(Set<String> authors, Date start, Date end, List<Issue> issues, TimesheetWriter timesheet, ExecutorService executor, ExecutorService pageExecutor) throws JiraException, IOException {
+        List<Future<List<WorkLog>>> workLogs = fetchWorkLogs(issues, start, end, executor, pageExecutor);
+        for (int i = 0; i < issues.size(); i++) {
+            Issue issue = issues.get(i);
+            writeRows(authors, start, end, issue, await(workLogs.get(i), "worklog for issue " + issue), timesheet);
+        }
+    }
+
+    static void writeRows(Set<String> authors, Date start, Date end, Issue issue, List<WorkLog> workLogs, TimesheetWriter timesheet) throws IOException {
+        for (WorkLog workLog : workLogs) {
+            if (isReported(authors, start, end, workLog)) {
+                timesheet.writeRow(issue, workLog);
+            }
+        }
+    }
+
+    private static boolean isReported(Set<String> authors, Date start, Date end, WorkLog workLog) {
+        if (authors == null || authors.contains(workLog.getAuthor().getName().toLowerCase())) {
+            return workLog.getStarted().compareTo(start) >= 0 && workLog.getStarted().before(end);
+        }
+        return false;
+    }
+
+    /**
+     * Starts fetching worklogs of all the issues on the executor. The futures are returned in issue order, so rows are
+     * still produced in search order no matter which fetch completes first. Only the worklogs started within the range are
+     * asked for, so old issues with years of worklogs cost no more than new ones. Issues with more worklogs than fit on one
+     * page get their later pages fetched concurrently on the page executor, which is separate so that the issue fetches
+     * waiting for their pages can't take all of its threads. Issues found with all their worklogs embedded need no
+     * request at all.
+     * 
+     * @param issues
+     *            Issues to fetch worklogs for.
+     * @param start
+     *            Start of the range, inclusive.
+     * @param end
+     *            End of the range, exclusive.
+     * @param executor
+     *            Executor bounding the number of concurrent requests.
+     * @param pageExecutor
+     *            Executor fetching the later worklog pages of the issues.
+     * @return Pending worklogs, one per issue.
+     */
+    private static List<Future<List<WorkLog>>> fetchWorkLogs(List<Issue> issues, final Date start, final Date end, ExecutorService executor, final ExecutorService pageExecutor) {
+        List<Future<List<WorkLog>>> workLogs = new ArrayList<Future<List<WorkLog>>>(issues.size());
+        for (final Issue issue : issues) {
+            if (issue.hasAllWorkLogs()) {
+                workLogs.add(CompletableFuture.completedFuture(issue.getWorkLogs()));
+                continue;
+            }
+            workLogs.add(executor.submit(new Callable<List<WorkLog>>() {
+                public List<WorkLog> call() throws JiraException {
+                    return issue.getAllWorkLogs(start, end, pageExecutor);
+                }
+            }));
+        }
+        return workLogs;
+    }
+
+    /**
+     * Creates the executor of the search shards and the issue fetches. On platform threads it's a pool of the configured
+     * size, on virtual threads every task gets its own thread and the global permits bound how many run at once, so
+     * thousands of issues can be queued without tuning a pool.
+     */
+    private static ExecutorService newExecutor() {
+        if (VIRTUAL_THREADS) {
+            ExecutorService virtual = TaskExecutors.newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                return TaskExecutors.withPermits(virtual, PERMITS);
             }
+            System.err.println("Virtual threads need Java 21, running on " + Math.max(THREADS, 1) + " platform threads");
+        }
+        return Executors.newFixedThreadPool(Math.max(THREADS, 1));
+    }
+
+    /**
+     * Creates the executor of the later worklog pages. On virtual threads its tasks take the same permits as the issue
+     * fetches; an issue fetch gives its permit back while it waits for its pages, so the pages can always get one.
+     */
+    private static ExecutorService newPageExecutor() {
+        if (VIRTUAL_THREADS) {
+            ExecutorService virtual = TaskExecutors.newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                return TaskExecutors.withPermits(virtual, PERMITS);
+            }
+        }
+        return Executors.newFixedThreadPool(Math.max(THREADS, 1));
+    }
+
+    private static <T> T await(Future<T> future, String what) throws JiraException {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof JiraException) {
+                throw (JiraException) ex.getCause();
+            }
+            throw new JiraException("Failed to get " + what, ex.getCause());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JiraException("Interrupted while fetching " + what, ex);
         }
-        return issues;
     }
 
     private static Date parseDate(String str) throws ParseException {
@@ -120,35 +490,6 @@ public class TimesheetGenerator {
         return format.parse(str);
     }
 
-    private static String toHours(String time) {
-        double hours = 0;
-        String tmp = time;
-        int indexOfw = time.indexOf("w");
-        if (indexOfw >= 0) {
-            tmp = time.substring(0, indexOfw);
-            time = time.substring(indexOfw + 1).trim();
-            hours += Integer.parseInt(tmp) * 40;
-        }
-        int indexOfd = time.indexOf("d");
-        if (indexOfd >= 0) {
-            tmp = time.substring(0, indexOfd);
-            time = time.substring(indexOfd + 1).trim();
-            hours += Integer.parseInt(tmp) * 8;
-        }
-        int indexOfh = time.indexOf("h");
-        if (indexOfh >= 0) {
-            tmp = time.substring(0, indexOfh);
-            time = time.substring(indexOfh + 1).trim();
-            hours += Integer.parseInt(tmp);
-        }
-        int indexOfm = time.indexOf("m");
-        if (indexOfm >= 0) {
-            tmp = time.substring(0, indexOfm);
-            hours += Integer.parseInt(tmp) / 60.0;
-        }
-        return hours + "";
-    }
-
     /**
      * Prepares JIRA REST API client. BEWARE: Bypasses SSL certificate verification, trusts even fake jira.abank.cz (boo hoo).
      * 
@@ -162,13 +503,11 @@ public class TimesheetGenerator {
      */
     private static JiraClient prepareJiraClient(String username, String password) throws Exception {
         BasicCredentials creds = new BasicCredentials(username, password);
-        JiraClient jira1 = new JiraClient("https://motionglobal.atlassian.net/", creds);
-        Field field = jira1.getClass().getDeclaredField("restclient");
-        field.setAccessible(true);
-        Object restClient = field.get(jira1);
-        Field declaredField = restClient.getClass().getDeclaredField("httpClient");
-        declaredField.setAccessible(true);
-        DefaultHttpClient httpClient = (DefaultHttpClient) declaredField.get(restClient);
+        JiraClient.PoolOptions pool = new JiraClient.PoolOptions();
+        pool.maxPerRoute = CONCURRENCY;
+        pool.maxTotal = pool.maxPerRoute;
+        JiraClient jira1 = new JiraClient("https://motionglobal.atlassian.net/", creds, pool);
+        HttpClient httpClient = jira1.getRestClient().getHttpClient();
         org.apache.http.conn.ssl.SSLSocketFactory sslsf = new org.apache.http.conn.ssl.SSLSocketFactory(new TrustStrategy() {
             public boolean isTrusted(final X509Certificate[] chain, String authType) throws CertificateException {
                 return true;
@@ -180,17 +519,4 @@ public class TimesheetGenerator {
         return jira;
     }
 
-    private static void saveStringAsFile(String content, String filePath) throws IOException {
-        File file = new File(filePath);
-        System.out.println("Writing as file: " + file.getAbsolutePath());
-        if (file.exists()) {
-            file.delete();
-        }
-        FileWriter writer = new FileWriter(file);
-        BufferedWriter out = new BufferedWriter(writer);
-        writer.write(content);
-        // System.out.println(content);
-        writer.flush();
-        writer.close();
-    }
 }
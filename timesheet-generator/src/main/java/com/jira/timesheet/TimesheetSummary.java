@@ -0,0 +1,172 @@
+package com.jira.timesheet;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.WorkLog;
+
+/**
+ * Totals of the reported work, computed while the rows are written, so the spreadsheet gets pre-pivoted tables instead
+ * of building them from the raw rows. Work by user and day is accumulated in {@link IssuesStats}. For the other tables
+ * users, projects and issue types are interned to ints and days are counted since the epoch, so every total lives in a
+ * {@link LongLongMap} under a key made of two ints.
+ */
+public class TimesheetSummary {
+    /** Format of the date columns, the days are in UTC since they are already local. */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern("MM/dd/yyyy").withZoneUTC();
+
+    /** Seconds and issues by user and day. */
+    private final IssuesStats days = new IssuesStats();
+    private final Names users = new Names();
+    private final Names projects = new Names();
+    private final Names issueTypes = new Names();
+    /** Seconds by user and project. */
+    private final LongLongMap userProjects = new LongLongMap();
+    /** Seconds by project and issue type. */
+    private final LongLongMap projectTypes = new LongLongMap();
+    /** Seconds by the first day of the week. */
+    private final LongLongMap weeks = new LongLongMap();
+
+    /**
+     * Adds the work of one timesheet row to the totals.
+     *
+     * @param issue
+     *            Issue the work was logged to.
+     * @param workLog
+     *            Logged work.
+     */
+    public void add(Issue issue, WorkLog workLog) {
+        int seconds = workLog.getTimeSpentSeconds();
+        String username = String.valueOf(workLog.getAuthor());
+        int user = users.intern(username);
+        int project = projects.intern(issue.getProject().getName());
+        int issueType = issueTypes.intern(issue.getIssueType().getName());
+        int day = days.getEpochDay(workLog.getStarted().getTime());
+
+        days.addWorkLog(username, issue.getKey(), day, seconds);
+        userProjects.add(LongLongMap.key(user, project), seconds);
+        projectTypes.add(LongLongMap.key(project, issueType), seconds);
+        weeks.add(day - Math.floorMod(day + 3, DateTimeConstants.DAYS_PER_WEEK), seconds);
+    }
+
+    /**
+     * Writes the totals next to the timesheet, one tab separated file per table named after the timesheet, e.g.
+     * timesheet-user-day.txt for timesheet.txt.
+     *
+     * @param timesheet
+     *            Timesheet file.
+     * @return Written files.
+     * @throws IOException
+     *             In case a file can't be written.
+     */
+    public List<File> write(File timesheet) throws IOException {
+        List<File> files = new ArrayList<File>();
+        files.add(writeDays(timesheet));
+        files.add(write(timesheet, "user-project", userProjects, new String[] { "Username", "Project", "Time Spent" }, users, projects));
+        files.add(write(timesheet, "project-type", projectTypes, new String[] { "Project", "Type", "Time Spent" }, projects, issueTypes));
+        files.add(write(timesheet, "week", weeks, new String[] { "Week", "Time Spent" }, null, null));
+        return files;
+    }
+
+    /**
+     * Writes the user and day table with the issues worked on, sorted by user and date.
+     */
+    private File writeDays(File timesheet) throws IOException {
+        File file = getFile(timesheet, "user-day");
+        CSVPrinter printer = open(file, new String[] { "Username", "Date", "Time Spent", "Issues" });
+        try {
+            StringBuilder cell = new StringBuilder(16);
+            for (int i : days.getSortedCells()) {
+                printer.print(days.getUsername(i));
+                printer.print(formatDay(days.getCellDay(i)));
+                cell.setLength(0);
+                printer.print(TimesheetWriter.appendHours(cell, days.getLoggedSecondsOfWork(i)));
+                printer.print(days.getIssues(i));
+                printer.println();
+            }
+        }
+        finally {
+            printer.close();
+        }
+        return file;
+    }
+
+    /**
+     * Writes one table sorted by names, or by date when the keys are days.
+     *
+     * @param high
+     *            Names of the high halves of the keys, null when the keys are days.
+     * @param low
+     *            Names of the low halves of the keys.
+     */
+    private static File write(File timesheet, String suffix, LongLongMap totals, String[] header, final Names high, final Names low) throws IOException {
+        File file = getFile(timesheet, suffix);
+
+        List<Long> keys = new ArrayList<Long>(totals.size());
+        for (long key : totals.sortedKeys()) {
+            keys.add(key);
+        }
+        if (high != null) {
+            Collections.sort(keys, new Comparator<Long>() {
+                public int compare(Long a, Long b) {
+                    int result = high.get(LongLongMap.high(a)).compareTo(high.get(LongLongMap.high(b)));
+                    if (result == 0) {
+                        result = low.get(LongLongMap.low(a)).compareTo(low.get(LongLongMap.low(b)));
+                    }
+                    return result != 0 ? result : a.compareTo(b);
+                }
+            });
+        }
+
+        CSVPrinter printer = open(file, header);
+        try {
+            StringBuilder cell = new StringBuilder(16);
+            for (long key : keys) {
+                if (high != null) {
+                    printer.print(high.get(LongLongMap.high(key)));
+                    printer.print(low.get(LongLongMap.low(key)));
+                }
+                else {
+                    printer.print(formatDay((int) key));
+                }
+                cell.setLength(0);
+                printer.print(TimesheetWriter.appendHours(cell, totals.get(key)));
+                printer.println();
+            }
+        }
+        finally {
+            printer.close();
+        }
+        return file;
+    }
+
+    private static File getFile(File timesheet, String suffix) {
+        String name = timesheet.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(timesheet.getAbsoluteFile().getParentFile(),
+                dot > 0 ? name.substring(0, dot) + "-" + suffix + name.substring(dot) : name + "-" + suffix);
+    }
+
+    private static CSVPrinter open(File file, String[] header) throws IOException {
+        return new CSVPrinter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")),
+                CSVFormat.TDF.withRecordSeparator('\n').withHeader(header));
+    }
+
+    private static String formatDay(int epochDay) {
+        return DATE_FORMATTER.print(epochDay * (long) DateTimeConstants.MILLIS_PER_DAY);
+    }
+}
@@ -0,0 +1,148 @@
+package com.jira.timesheet;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.WorkLog;
+
+/**
+ * Writes timesheet rows to a tab separated file as they are produced, so the report is never held in memory.
+ */
+public class TimesheetWriter implements Closeable {
+    /** Columns of the timesheet, the Excel macro expects them in this order. */
+    private static final String[] HEADER = { "Project", "Type", "Key", "Title", "Username", "Time Spent", "Date" };
+    /** Format of the Date column, Joda formatters are immutable so one instance serves every row. */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern("MM/dd/yyyy");
+    private static final int SECONDS_PER_HOUR = 3600;
+
+    private final CSVPrinter printer;
+    /** Totals of the written rows, null when they are not computed. */
+    private final TimesheetSummary summary;
+    /** Buffer the formatted cells are assembled in, reused for every row. */
+    private final StringBuilder cell = new StringBuilder(16);
+
+    /**
+     * Creates the file, replacing an existing one, and writes the header row.
+     *
+     * @param file
+     *            File to write the timesheet to.
+     * @throws IOException
+     *             In case the file can't be created.
+     */
+    public TimesheetWriter(File file) throws IOException {
+        this(file, null);
+    }
+
+    /**
+     * Creates the file, replacing an existing one, and writes the header row.
+     *
+     * @param file
+     *            File to write the timesheet to.
+     * @param summary
+     *            Totals to add every written row to, or null.
+     * @throws IOException
+     *             In case the file can't be created.
+     */
+    public TimesheetWriter(File file, TimesheetSummary summary) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")), summary);
+    }
+
+    /**
+     * Writes the header row to the given writer, which is closed with this one.
+     *
+     * @param out
+     *            Writer to write the timesheet to.
+     * @throws IOException
+     *             In case the header can't be written.
+     */
+    public TimesheetWriter(Writer out) throws IOException {
+        this(out, null);
+    }
+
+    /**
+     * Writes the header row to the given writer, which is closed with this one.
+     *
+     * @param out
+     *            Writer to write the timesheet to.
+     * @param summary
+     *            Totals to add every written row to, or null.
+     * @throws IOException
+     *             In case the header can't be written.
+     */
+    public TimesheetWriter(Writer out, TimesheetSummary summary) throws IOException {
+        printer = new CSVPrinter(out, CSVFormat.TDF.withRecordSeparator('\n').withHeader(HEADER));
+        this.summary = summary;
+    }
+
+    /**
+     * Writes one timesheet row.
+     *
+     * @param issue
+     *            Issue the work was logged to.
+     * @param workLog
+     *            Logged work.
+     * @throws IOException
+     *             In case the row can't be written.
+     */
+    public void writeRow(Issue issue, WorkLog workLog) throws IOException {
+        printer.print(issue.getProject().getName());
+        printer.print(issue.getIssueType().getName());
+        printer.print(issue);
+        printer.print(issue.getSummary());
+        printer.print(workLog.getAuthor());
+        cell.setLength(0);
+        appendHours(cell, workLog.getTimeSpentSeconds());
+        printer.print(cell);
+        cell.setLength(0);
+        DATE_FORMATTER.printTo(cell, workLog.getStarted().getTime());
+        printer.print(cell);
+        printer.println();
+        if (summary != null) {
+            summary.add(issue, workLog);
+        }
+    }
+
+    /**
+     * Flushes the rows written so far and closes the file.
+     */
+    public void close() throws IOException {
+        printer.close();
+    }
+
+    /**
+     * Appends the time in hours rounded to hundredths, with one decimal place at least, e.g. "1.0", "1.5" or "0.25".
+     * The seconds are converted in integer arithmetic, so no text is parsed and no double is formatted.
+     *
+     * @param out
+     *            Buffer to append to.
+     * @param seconds
+     *            Time spent in seconds.
+     * @return The buffer.
+     */
+    static StringBuilder appendHours(StringBuilder out, long seconds) {
+        long hundredths = (seconds * 100L + SECONDS_PER_HOUR / 2) / SECONDS_PER_HOUR;
+        int fraction = (int) (hundredths % 100);
+        out.append(hundredths / 100).append('.');
+        if (fraction % 10 == 0) {
+            out.append(fraction / 10);
+        }
+        else {
+            if (fraction < 10) {
+                out.append('0');
+            }
+            out.append(fraction);
+        }
+        return out;
+    }
+}
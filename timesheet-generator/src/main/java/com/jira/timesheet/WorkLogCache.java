@@ -0,0 +1,357 @@
+package com.jira.timesheet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.rcarz.jiraclient.Field;
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.JsonStream;
+import net.rcarz.jiraclient.RestClient;
+import net.rcarz.jiraclient.User;
+import net.rcarz.jiraclient.WorkLog;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Local copy of worklogs and of the issues they belong to, kept in a JSON file between runs. The time of the last sync
+ * is kept as a watermark, so the next run only asks JIRA for the worklogs changed after it.
+ */
+public class WorkLogCache {
+    private static final String CHARSET = "UTF-8";
+
+    /** File the cache is stored in. */
+    private final File file;
+    /** Start of the period the cache is complete for, milliseconds since the epoch. */
+    private long origin = Long.MAX_VALUE;
+    /** Time of the last sync, milliseconds since the epoch. */
+    private long watermark = 0;
+    /** Issues in JIRA JSON format by issue ID. */
+    private final Map<String, JSONObject> issues = new LinkedHashMap<String, JSONObject>();
+    /** Worklogs in JIRA JSON format by issue ID and worklog ID. */
+    private final Map<String, Map<String, JSONObject>> workLogs = new LinkedHashMap<String, Map<String, JSONObject>>();
+    /** Issue ID of every cached worklog by worklog ID. */
+    private final Map<String, String> workLogIssues = new HashMap<String, String>();
+
+    /**
+     * @param file
+     *            File the cache is stored in, it doesn't have to exist yet.
+     */
+    public WorkLogCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the cache from its file, an empty cache is used when there is no file yet.
+     *
+     * @throws IOException
+     *             In case the file can't be read.
+     */
+    public void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        // every issue and worklog is read as an object of its own: json-lib parses strings looking like JSON again
+        // each time an object is nested into another, so reading the file as a whole would change them
+        JsonParser parser = JsonStream.FACTORY.createParser(new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET)));
+        try {
+            parser.nextToken();
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if (name.equals("origin")) {
+                    origin = parser.getLongValue();
+                }
+                else if (name.equals("watermark")) {
+                    watermark = parser.getLongValue();
+                }
+                else if (name.equals("issues")) {
+                    expectObject(parser);
+                    while (nextField(parser)) {
+                        issues.put(parser.getCurrentName(), readObject(parser));
+                    }
+                }
+                else if (name.equals("worklogs")) {
+                    expectObject(parser);
+                    while (nextField(parser)) {
+                        String issueId = parser.getCurrentName();
+                        parser.nextToken();
+                        expectObject(parser);
+                        while (nextField(parser)) {
+                            putWorkLog(issueId, parser.getCurrentName(), readObject(parser));
+                        }
+                    }
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        finally {
+            parser.close();
+        }
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+    }
+
+    private static boolean nextField(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new JsonParseException(parser, "Unexpected end of JSON input");
+        }
+        return token == JsonToken.FIELD_NAME;
+    }
+
+    private static JSONObject readObject(JsonParser parser) throws IOException {
+        parser.nextToken();
+        return JsonStream.readCurrentObject(parser);
+    }
+
+    /**
+     * Stores the cache to its file. The file is replaced only after the whole cache is written.
+     *
+     * @throws IOException
+     *             In case the file can't be written.
+     */
+    public void save() throws IOException {
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), CHARSET));
+        try {
+            writer.write("{\"origin\":" + origin + ",\"watermark\":" + watermark + ",\"issues\":");
+            writeObjects(writer, issues);
+            writer.write(",\"worklogs\":{");
+            boolean first = true;
+            for (Map.Entry<String, Map<String, JSONObject>> issueWorkLogs : workLogs.entrySet()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writer.write(JSONUtils.quote(issueWorkLogs.getKey()));
+                writer.write(':');
+                writeObjects(writer, issueWorkLogs.getValue());
+            }
+            writer.write("}}");
+        }
+        finally {
+            writer.close();
+        }
+        if (file.exists() && !file.delete() || !tmp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Writes the objects as they are; nesting them into one JSONObject first would make json-lib parse their strings
+     * looking like JSON.
+     */
+    private static void writeObjects(Writer writer, Map<String, JSONObject> objects) throws IOException {
+        writer.write('{');
+        boolean first = true;
+        for (Map.Entry<String, JSONObject> object : objects.entrySet()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            writer.write(JSONUtils.quote(object.getKey()));
+            writer.write(':');
+            object.getValue().write(writer);
+        }
+        writer.write('}');
+    }
+
+    /**
+     * @param start
+     *            Start of the reported period.
+     * @return Time to ask JIRA for changed worklogs from, the watermark when the cache already covers the period.
+     */
+    public long getSyncStart(Date start) {
+        return origin <= start.getTime() ? watermark : start.getTime();
+    }
+
+    /**
+     * Marks the cache as complete.
+     *
+     * @param start
+     *            Start of the reported period.
+     * @param until
+     *            Time JIRA reported the changes up to, the next sync starts from it.
+     */
+    public void setSynced(Date start, long until) {
+        origin = Math.min(origin, start.getTime());
+        watermark = until;
+    }
+
+    /**
+     * Adds or replaces a worklog, a worklog moved to another issue is removed from the old one.
+     *
+     * @param workLog
+     *            Worklog retrieved in bulk, so it knows its issue ID.
+     */
+    public void putWorkLog(WorkLog workLog) {
+        String issueId = workLogIssues.get(workLog.getId());
+        if (issueId != null && !issueId.equals(workLog.getIssueId())) {
+            removeWorkLog(workLog.getId());
+        }
+        putWorkLog(workLog.getIssueId(), workLog.getId(), toJson(workLog));
+    }
+
+    private void putWorkLog(String issueId, String workLogId, JSONObject json) {
+        Map<String, JSONObject> issueWorkLogs = workLogs.get(issueId);
+        if (issueWorkLogs == null) {
+            issueWorkLogs = new LinkedHashMap<String, JSONObject>();
+            workLogs.put(issueId, issueWorkLogs);
+        }
+        issueWorkLogs.put(workLogId, json);
+        workLogIssues.put(workLogId, issueId);
+    }
+
+    /**
+     * @param workLogId
+     *            ID of the worklog to be removed.
+     */
+    public void removeWorkLog(String workLogId) {
+        String issueId = workLogIssues.remove(workLogId);
+        if (issueId == null) {
+            return;
+        }
+        Map<String, JSONObject> issueWorkLogs = workLogs.get(issueId);
+        issueWorkLogs.remove(workLogId);
+        if (issueWorkLogs.isEmpty()) {
+            workLogs.remove(issueId);
+            issues.remove(issueId);
+        }
+    }
+
+    /**
+     * @param issue
+     *            Issue to be added or replaced.
+     */
+    public void putIssue(Issue issue) {
+        issues.put(issue.getId(), toJson(issue));
+    }
+
+    /**
+     * @return IDs of the issues having cached worklogs.
+     */
+    public List<String> getIssueIds() {
+        return new ArrayList<String>(workLogs.keySet());
+    }
+
+    /**
+     * @param issueId
+     *            Issue ID.
+     * @param restclient
+     *            REST client the issue is bound to.
+     * @return Cached issue or null when its details are not cached.
+     */
+    public Issue getIssue(String issueId, RestClient restclient) {
+        return Field.getResource(Issue.class, issues.get(issueId), restclient);
+    }
+
+    /**
+     * @param issueId
+     *            Issue ID.
+     * @param restclient
+     *            REST client the worklogs are bound to.
+     * @return Cached worklogs of the issue.
+     */
+    public List<WorkLog> getWorkLogs(String issueId, RestClient restclient) {
+        List<WorkLog> result = new ArrayList<WorkLog>();
+        Map<String, JSONObject> issueWorkLogs = workLogs.get(issueId);
+        if (issueWorkLogs != null) {
+            for (JSONObject json : issueWorkLogs.values()) {
+                result.add(Field.getResource(WorkLog.class, json, restclient));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of cached worklogs.
+     */
+    public int size() {
+        return workLogIssues.size();
+    }
+
+    private static JSONObject toJson(WorkLog workLog) {
+        JSONObject json = new JSONObject();
+        putString(json, "id", workLog.getId());
+        putString(json, "issueId", workLog.getIssueId());
+        json.put("author", toJson(workLog.getAuthor()));
+        json.put("updateAuthor", toJson(workLog.getUpdateAuthor()));
+        putDate(json, "created", workLog.getCreatedDate());
+        putDate(json, "updated", workLog.getUpdatedDate());
+        putDate(json, "started", workLog.getStarted());
+        putString(json, "timeSpent", workLog.getTimeSpent());
+        json.put("timeSpentSeconds", workLog.getTimeSpentSeconds());
+        return json;
+    }
+
+    private static JSONObject toJson(User user) {
+        if (user == null) {
+            return null;
+        }
+        JSONObject json = new JSONObject();
+        putString(json, "name", user.getName());
+        putString(json, "displayName", user.getDisplayName());
+        return json;
+    }
+
+    private static JSONObject toJson(Issue issue) {
+        JSONObject fields = new JSONObject();
+        putString(fields, Field.SUMMARY, issue.getSummary());
+        if (issue.getProject() != null) {
+            JSONObject project = new JSONObject();
+            putString(project, "id", issue.getProject().getId());
+            putString(project, "key", issue.getProject().getKey());
+            putString(project, "name", issue.getProject().getName());
+            fields.put(Field.PROJECT, project);
+        }
+        if (issue.getIssueType() != null) {
+            JSONObject issueType = new JSONObject();
+            putString(issueType, "id", issue.getIssueType().getId());
+            putString(issueType, "name", issue.getIssueType().getName());
+            fields.put(Field.ISSUE_TYPE, issueType);
+        }
+        JSONObject json = new JSONObject();
+        putString(json, "id", issue.getId());
+        putString(json, "key", issue.getKey());
+        json.put("fields", fields);
+        return json;
+    }
+
+    /**
+     * Puts a string the way the search keeps it: a value looking like JSON, such as a summary "null", stays a string
+     * instead of being parsed by json-lib.
+     */
+    private static void putString(JSONObject json, String key, String value) {
+        json.put(key, JsonStream.toProperty(value));
+    }
+
+    private static void putDate(JSONObject json, String key, Date date) {
+        if (date != null) {
+            json.put(key, Field.DATETIME_FORMATTER.print(date.getTime()));
+        }
+    }
+}
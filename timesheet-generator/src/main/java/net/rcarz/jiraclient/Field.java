@@ -22,18 +22,21 @@ package net.rcarz.jiraclient;
 import java.lang.Iterable;
 import java.lang.UnsupportedOperationException;
 import java.sql.Timestamp;
-import java.text.ParsePosition;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import net.sf.json.JSONNull;
 
+import org.joda.time.chrono.ISOChronology;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
 /**
  * Utility functions for translating between JSON and fields.
  */
@@ -153,6 +156,147 @@ public final class Field {
     public static final String DATE_FORMAT = "yyyy-MM-dd";
     public static final String DATETIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
 
+    /* formatters are immutable and thread-safe, unlike SimpleDateFormat */
+    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern(DATE_FORMAT);
+    public static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormat.forPattern(DATETIME_FORMAT);
+
+    private static final Map<Class<?>, IResourceFactory<?>> FACTORIES =
+        new ConcurrentHashMap<Class<?>, IResourceFactory<?>>();
+
+    static {
+        register(Attachment.class, new IResourceFactory<Attachment>() {
+            public Attachment create(RestClient restclient, JSONObject json) {
+                return new Attachment(restclient, json);
+            }
+        });
+
+        register(ChangeLog.class, new IResourceFactory<ChangeLog>() {
+            public ChangeLog create(RestClient restclient, JSONObject json) {
+                return new ChangeLog(restclient, json);
+            }
+        });
+
+        register(ChangeLogEntry.class, new IResourceFactory<ChangeLogEntry>() {
+            public ChangeLogEntry create(RestClient restclient, JSONObject json) {
+                return new ChangeLogEntry(restclient, json);
+            }
+        });
+
+        register(ChangeLogItem.class, new IResourceFactory<ChangeLogItem>() {
+            public ChangeLogItem create(RestClient restclient, JSONObject json) {
+                return new ChangeLogItem(restclient, json);
+            }
+        });
+
+        register(Comment.class, new IResourceFactory<Comment>() {
+            public Comment create(RestClient restclient, JSONObject json) {
+                return new Comment(restclient, json);
+            }
+        });
+
+        register(Component.class, new IResourceFactory<Component>() {
+            public Component create(RestClient restclient, JSONObject json) {
+                return new Component(restclient, json);
+            }
+        });
+
+        register(CustomFieldOption.class, new IResourceFactory<CustomFieldOption>() {
+            public CustomFieldOption create(RestClient restclient, JSONObject json) {
+                return new CustomFieldOption(restclient, json);
+            }
+        });
+
+        register(Issue.class, new IResourceFactory<Issue>() {
+            public Issue create(RestClient restclient, JSONObject json) {
+                return new Issue(restclient, json);
+            }
+        });
+
+        register(IssueLink.class, new IResourceFactory<IssueLink>() {
+            public IssueLink create(RestClient restclient, JSONObject json) {
+                return new IssueLink(restclient, json);
+            }
+        });
+
+        register(IssueType.class, new IResourceFactory<IssueType>() {
+            public IssueType create(RestClient restclient, JSONObject json) {
+                return new IssueType(restclient, json);
+            }
+        });
+
+        register(LinkType.class, new IResourceFactory<LinkType>() {
+            public LinkType create(RestClient restclient, JSONObject json) {
+                return new LinkType(restclient, json);
+            }
+        });
+
+        register(Priority.class, new IResourceFactory<Priority>() {
+            public Priority create(RestClient restclient, JSONObject json) {
+                return new Priority(restclient, json);
+            }
+        });
+
+        register(Project.class, new IResourceFactory<Project>() {
+            public Project create(RestClient restclient, JSONObject json) {
+                return new Project(restclient, json);
+            }
+        });
+
+        register(RemoteLink.class, new IResourceFactory<RemoteLink>() {
+            public RemoteLink create(RestClient restclient, JSONObject json) {
+                return new RemoteLink(restclient, json);
+            }
+        });
+
+        register(Resolution.class, new IResourceFactory<Resolution>() {
+            public Resolution create(RestClient restclient, JSONObject json) {
+                return new Resolution(restclient, json);
+            }
+        });
+
+        register(Status.class, new IResourceFactory<Status>() {
+            public Status create(RestClient restclient, JSONObject json) {
+                return new Status(restclient, json);
+            }
+        });
+
+        register(Transition.class, new IResourceFactory<Transition>() {
+            public Transition create(RestClient restclient, JSONObject json) {
+                return new Transition(restclient, json);
+            }
+        });
+
+        register(User.class, new IResourceFactory<User>() {
+            public User create(RestClient restclient, JSONObject json) {
+                return new User(restclient, json);
+            }
+        });
+
+        register(Version.class, new IResourceFactory<Version>() {
+            public Version create(RestClient restclient, JSONObject json) {
+                return new Version(restclient, json);
+            }
+        });
+
+        register(Votes.class, new IResourceFactory<Votes>() {
+            public Votes create(RestClient restclient, JSONObject json) {
+                return new Votes(restclient, json);
+            }
+        });
+
+        register(Watches.class, new IResourceFactory<Watches>() {
+            public Watches create(RestClient restclient, JSONObject json) {
+                return new Watches(restclient, json);
+            }
+        });
+
+        register(WorkLog.class, new IResourceFactory<WorkLog>() {
+            public WorkLog create(RestClient restclient, JSONObject json) {
+                return new WorkLog(restclient, json);
+            }
+        });
+    }
+
     private Field() { }
 
     /**
@@ -204,6 +348,25 @@ public final class Field {
 
         return results;
     }
+
+    /**
+     * Gets the total number of work logs from the given object. The work
+     * log field of an issue embeds only the first few work logs, this is the
+     * number the issue really has.
+     *
+     * @param c a JSONObject instance
+     *
+     * @return the total or -1 if c isn't a JSONObject instance with a total
+     */
+    public static int getWorkLogTotal(Object c) {
+        int result = -1;
+
+        if (c instanceof JSONObject && !((JSONObject)c).isNullObject()
+                && ((Map)c).get("total") instanceof Integer)
+            result = getInteger(((Map)c).get("total"));
+
+        return result;
+    }
     
     /**
      * Gets a list of remote links from the given object.
@@ -232,10 +395,8 @@ public final class Field {
     public static Date getDate(Object d) {
         Date result = null;
 
-        if (d instanceof String) {
-            SimpleDateFormat df = new SimpleDateFormat(DATE_FORMAT);
-            result = df.parse((String)d, new ParsePosition(0));
-        }
+        if (d instanceof String)
+            result = parseDate((String)d);
 
         return result;
     }
@@ -250,9 +411,103 @@ public final class Field {
     public static Date getDateTime(Object d) {
         Date result = null;
 
-        if (d instanceof String) {
-            SimpleDateFormat df = new SimpleDateFormat(DATETIME_FORMAT);
-            result = df.parse((String)d, new ParsePosition(0));
+        if (d instanceof String)
+            result = parseDateTime((String)d);
+
+        return result;
+    }
+
+    /**
+     * Parses the date at the start of the given string as midnight in the
+     * default time zone. Anything after the date is ignored, so the date of
+     * a date-time string is returned.
+     *
+     * @param s a string starting with a date in {@link #DATE_FORMAT}
+     *
+     * @return a Date instance or null if s doesn't start with a valid date
+     */
+    private static Date parseDate(String s) {
+        if (s.length() >= 10 && s.charAt(4) == '-' && s.charAt(7) == '-') {
+            int year = parseDigits(s, 0, 4);
+            int month = parseDigits(s, 5, 7);
+            int day = parseDigits(s, 8, 10);
+
+            if (year >= 0 && month >= 0 && day >= 0) {
+                try {
+                    return new Date(ISOChronology.getInstance().getDateTimeMillis(year, month, day, 0));
+                } catch (IllegalArgumentException ex) {
+                    /* invalid date or midnight skipped by a DST change, see below */
+                }
+            }
+        }
+
+        try {
+            return DATE_FORMATTER.parseLocalDate(s.length() > 10 ? s.substring(0, 10) : s)
+                .toDateTimeAtStartOfDay().toDate();
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a date with a time in {@link #DATETIME_FORMAT}. The fixed
+     * layout JIRA uses (2016-05-23T10:15:30.000+0200) is parsed without
+     * a formatter.
+     *
+     * @param s a string representation of a date with a time
+     *
+     * @return a Date instance or null if s isn't a valid date with a time
+     */
+    private static Date parseDateTime(String s) {
+        if (s.length() == 28 && s.charAt(4) == '-' && s.charAt(7) == '-' && s.charAt(10) == 'T'
+                && s.charAt(13) == ':' && s.charAt(16) == ':' && s.charAt(19) == '.'
+                && (s.charAt(23) == '+' || s.charAt(23) == '-')) {
+
+            int year = parseDigits(s, 0, 4);
+            int month = parseDigits(s, 5, 7);
+            int day = parseDigits(s, 8, 10);
+            int hour = parseDigits(s, 11, 13);
+            int minute = parseDigits(s, 14, 16);
+            int second = parseDigits(s, 17, 19);
+            int millis = parseDigits(s, 20, 23);
+            int offsetHours = parseDigits(s, 24, 26);
+            int offsetMinutes = parseDigits(s, 26, 28);
+
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0
+                    && millis >= 0 && offsetHours >= 0 && offsetMinutes >= 0) {
+                try {
+                    long offset = (offsetHours * 60L + offsetMinutes) * 60000L;
+                    long local = ISOChronology.getInstanceUTC().getDateTimeMillis(
+                        year, month, day, hour, minute, second, millis);
+                    return new Date(s.charAt(23) == '+' ? local - offset : local + offset);
+                } catch (IllegalArgumentException ex) {
+                    return null;
+                }
+            }
+        }
+
+        try {
+            return DATETIME_FORMATTER.parseDateTime(s).toDate();
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a non-negative decimal number from a part of a string.
+     *
+     * @return the number or -1 if the part contains anything but digits
+     */
+    private static int parseDigits(String s, int begin, int end) {
+        int result = 0;
+
+        for (int i = begin; i < end; i++) {
+            char c = s.charAt(i);
+
+            if (c < '0' || c > '9')
+                return -1;
+
+            result = result * 10 + (c - '0');
         }
 
         return result;
@@ -316,6 +571,21 @@ public final class Field {
         return result;
     }
 
+    /**
+     * Registers the factory building resources of the given type, replacing
+     * any factory registered before. Lets callers plug in their own
+     * resource types, e.g. a slimmer work log, for {@link #getResource} and
+     * {@link #getResourceArray}.
+     *
+     * @param type Resource data type
+     * @param factory Factory creating the resources
+     */
+    public static <T extends Resource> void register(
+        Class<T> type, IResourceFactory<T> factory) {
+
+        FACTORIES.put(type, factory);
+    }
+
     /**
      * Gets a JIRA resource from the given object.
      *
@@ -331,55 +601,27 @@ public final class Field {
         T result = null;
 
         if (r instanceof JSONObject && !((JSONObject)r).isNullObject()) {
-            if (type == Attachment.class)
-                result = (T)new Attachment(restclient, (JSONObject)r);
-            else if (type == ChangeLog.class)
-                result = (T)new ChangeLog(restclient, (JSONObject)r);
-            else if (type == ChangeLogEntry.class)
-                result = (T)new ChangeLogEntry(restclient, (JSONObject)r);
-            else if (type == ChangeLogItem.class)
-                result = (T)new ChangeLogItem(restclient, (JSONObject)r);
-            else if (type == Comment.class)
-                result = (T)new Comment(restclient, (JSONObject)r);
-            else if (type == Component.class)
-                result = (T)new Component(restclient, (JSONObject)r);
-            else if (type == CustomFieldOption.class)
-                result = (T)new CustomFieldOption(restclient, (JSONObject)r);
-            else if (type == Issue.class)
-                result = (T)new Issue(restclient, (JSONObject)r);
-            else if (type == IssueLink.class)
-                result = (T)new IssueLink(restclient, (JSONObject)r);
-            else if (type == IssueType.class)
-                result = (T)new IssueType(restclient, (JSONObject)r);
-            else if (type == LinkType.class)
-                result = (T)new LinkType(restclient, (JSONObject)r);
-            else if (type == Priority.class)
-                result = (T)new Priority(restclient, (JSONObject)r);
-            else if (type == Project.class)
-                result = (T)new Project(restclient, (JSONObject)r);
-            else if (type == RemoteLink.class)
-                result = (T)new RemoteLink(restclient, (JSONObject)r);
-            else if (type == Resolution.class)
-                result = (T)new Resolution(restclient, (JSONObject)r);
-            else if (type == Status.class)
-                result = (T)new Status(restclient, (JSONObject)r);
-            else if (type == Transition.class)
-                result = (T)new Transition(restclient, (JSONObject)r);
-            else if (type == User.class)
-                result = (T)new User(restclient, (JSONObject)r);
-            else if (type == Version.class)
-                result = (T)new Version(restclient, (JSONObject)r);
-            else if (type == Votes.class)
-                result = (T)new Votes(restclient, (JSONObject)r);
-            else if (type == Watches.class)
-                result = (T)new Watches(restclient, (JSONObject)r);
-            else if (type == WorkLog.class)
-                result = (T)new WorkLog(restclient, (JSONObject)r);
+            ResourceCache cache = restclient != null ? restclient.getResourceCache() : null;
+
+            if (cache != null && cache.isCached(type)) {
+                result = cache.get(type, (JSONObject)r);
+                if (result == null)
+                    result = cache.put(type, newResource(type, (JSONObject)r, restclient));
+            } else
+                result = newResource(type, (JSONObject)r, restclient);
         }
 
         return result;
     }
 
+    private static <T extends Resource> T newResource(
+        Class<T> type, JSONObject r, RestClient restclient) {
+
+        IResourceFactory<?> factory = FACTORIES.get(type);
+
+        return factory != null ? type.cast(factory.create(restclient, r)) : null;
+    }
+
     /**
      * Gets a string from the given object.
      *
@@ -505,11 +747,10 @@ public final class Field {
             return (Date)value;
 
         String dateStr = value.toString();
-        SimpleDateFormat df = new SimpleDateFormat(DATE_FORMAT);
         if (dateStr.length() > DATE_FORMAT.length()) {
-            df = new SimpleDateFormat(DATETIME_FORMAT);
+            return parseDateTime(dateStr);
         }
-        return df.parse(dateStr, new ParsePosition(0));
+        return parseDate(dateStr);
     }
 
     /**
@@ -604,16 +845,14 @@ public final class Field {
             if (d == null)
                 throw new JiraException("Field '" + name + "' expects a date value or format is invalid");
 
-            SimpleDateFormat df = new SimpleDateFormat(DATE_FORMAT);
-            return df.format(d);
+            return DATE_FORMATTER.print(d.getTime());
         } else if (m.type.equals("datetime")) {
             if (value == null)
                 return JSONNull.getInstance();
             else if (!(value instanceof Timestamp))
                 throw new JiraException("Field '" + name + "' expects a Timestamp value");
 
-            SimpleDateFormat df = new SimpleDateFormat(DATETIME_FORMAT);
-            return df.format(value);
+            return DATETIME_FORMATTER.print(((Timestamp)value).getTime());
         } else if (m.type.equals("issuetype") || m.type.equals("priority") ||
                 m.type.equals("user") || m.type.equals("resolution")) {
             JSONObject json = new JSONObject();
@@ -0,0 +1,42 @@
+/**
+ * jira-client - a simple JIRA REST client
+ * Copyright (c) 2013 Bob Carroll (bob.carroll@alum.rit.edu)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.rcarz.jiraclient;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Consumes a JSON response body token by token.
+ */
+public interface IJsonStreamHandler<T> {
+
+    /**
+     * Reads the response body from the given parser. The parser is
+     * positioned before the first token and is closed by the caller.
+     *
+     * @param parser JSON parser reading the response body
+     *
+     * @return the result of the request
+     *
+     * @throws IOException when reading or parsing the body fails
+     */
+    T handle(JsonParser parser) throws IOException;
+}
@@ -20,14 +20,22 @@
 package net.rcarz.jiraclient;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.sf.json.JSON;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 /**
  * Represents a JIRA issue.
  */
@@ -539,6 +547,195 @@ public class Issue extends Resource {
         public List<Issue> issues = null;
     }
 
+    /**
+     * Issue work log page structure.
+     */
+    public static class WorkLogResult {
+        public int start = 0;
+        public int max = 0;
+        public int total = 0;
+        public List<WorkLog> workLogs = null;
+    }
+
+    /**
+     * Pages through the results of a search, one request per page. The next
+     * page starts where the previous one ended, so a server that caps the
+     * page size below the requested maximum is still followed until the
+     * reported total is reached.
+     */
+    public static final class SearchIterator {
+
+        private final RestClient restclient;
+        private final String jql;
+        private final String includedFields;
+        private final String expandFields;
+        private final Integer pageSize;
+        private int startAt;
+        private int total = -1;
+
+        private SearchIterator(RestClient restclient, String jql, String includedFields,
+                String expandFields, Integer pageSize, int startAt) {
+
+            this.restclient = restclient;
+            this.jql = jql;
+            this.includedFields = includedFields;
+            this.expandFields = expandFields;
+            this.pageSize = pageSize;
+            this.startAt = startAt;
+        }
+
+        /**
+         * @return true when another page is available
+         */
+        public boolean hasNext() {
+            return total < 0 || startAt < total;
+        }
+
+        /**
+         * Retrieves the next page of issues.
+         *
+         * @return a search result structure with the issues of the page
+         *
+         * @throws JiraException when the search fails
+         * @throws NoSuchElementException when there are no more pages
+         */
+        public SearchResult next() throws JiraException {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            SearchResult sr = search(restclient, jql, includedFields, expandFields, pageSize, startAt);
+
+            /* an empty page means the result set shrank while paging */
+            total = sr.issues.isEmpty() ? sr.start : sr.total;
+            startAt = sr.start + sr.issues.size();
+
+            return sr;
+        }
+
+        /**
+         * @return the total number of issues reported by the last page or
+         * -1 before the first page is retrieved
+         */
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Pages through the work logs of an issue. The first page is retrieved
+     * on its own to learn the total and the page size the server allows;
+     * when an executor is given, all the later pages are then requested at
+     * once and handed out in order as they arrive. A page that comes back
+     * shorter than expected falls back to paging one request at a time from
+     * where it ended, so nothing is skipped when the work logs change.
+     */
+    public static final class WorkLogIterator {
+
+        private final Issue issue;
+        private final Date startedAfter;
+        private final Date startedBefore;
+        private final Integer pageSize;
+        private final ExecutorService executor;
+        private final LinkedList<Future<WorkLogResult>> prefetched =
+            new LinkedList<Future<WorkLogResult>>();
+        private int prefetchSize = 0;
+        private int startAt = 0;
+        private int total = -1;
+
+        private WorkLogIterator(Issue issue, Date startedAfter, Date startedBefore,
+                Integer pageSize, ExecutorService executor) {
+
+            this.issue = issue;
+            this.startedAfter = startedAfter;
+            this.startedBefore = startedBefore;
+            this.pageSize = pageSize;
+            this.executor = executor;
+        }
+
+        /**
+         * @return true when another page is available
+         */
+        public boolean hasNext() {
+            return total < 0 || startAt < total;
+        }
+
+        /**
+         * Retrieves the next page of work logs.
+         *
+         * @return a work log page structure
+         *
+         * @throws JiraException when the page can't be retrieved
+         * @throws NoSuchElementException when there are no more pages
+         */
+        public WorkLogResult next() throws JiraException {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            WorkLogResult wr = prefetched.isEmpty() ?
+                issue.getWorkLogPage(startedAfter, startedBefore, pageSize, startAt) :
+                await(prefetched.removeFirst());
+            int expected = startAt;
+
+            /* an empty page means the work logs shrank while paging */
+            total = wr.workLogs.isEmpty() ? wr.start : wr.total;
+            startAt = wr.start + wr.workLogs.size();
+
+            if (wr.start != expected || wr.workLogs.size() < prefetchSize || !hasNext())
+                cancel();
+            else if (executor != null && expected == 0)
+                prefetch(wr.workLogs.size());
+
+            return wr;
+        }
+
+        /**
+         * @return the total number of work logs reported by the last page or
+         * -1 before the first page is retrieved
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Stops the requests of the pages not handed out yet.
+         */
+        public void cancel() {
+            for (Future<WorkLogResult> page : prefetched)
+                page.cancel(true);
+
+            prefetched.clear();
+        }
+
+        private void prefetch(final int size) {
+            prefetchSize = size;
+
+            for (int start = startAt; start < total; start += size) {
+                final int pageStart = start;
+
+                prefetched.add(executor.submit(new Callable<WorkLogResult>() {
+                    public WorkLogResult call() throws JiraException {
+                        return issue.getWorkLogPage(startedAfter, startedBefore, size, pageStart);
+                    }
+                }));
+            }
+        }
+
+        private WorkLogResult await(Future<WorkLogResult> page) throws JiraException {
+            try {
+                return page.get();
+            } catch (ExecutionException ex) {
+                cancel();
+                if (ex.getCause() instanceof JiraException)
+                    throw (JiraException) ex.getCause();
+                throw new JiraException("Failed to get worklog for issue " + issue.key, ex.getCause());
+            } catch (InterruptedException ex) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new JiraException("Interrupted while getting worklog for issue " + issue.key, ex);
+            }
+        }
+    }
+
     public static final class NewAttachment {
 
         private final String filename;
@@ -590,8 +787,22 @@ public class Issue extends Resource {
 
     }
 
+    /**
+     * System fields deserialised by this class.
+     */
+    private static final List<String> SYSTEM_FIELDS = Arrays.asList(
+        Field.ASSIGNEE, Field.ATTACHMENT, Field.COMMENT, Field.COMPONENTS,
+        Field.DESCRIPTION, Field.DUE_DATE, Field.FIX_VERSIONS, Field.ISSUE_LINKS,
+        Field.ISSUE_TYPE, Field.LABELS, Field.PARENT, Field.PRIORITY, Field.PROJECT,
+        Field.REPORTER, Field.RESOLUTION, Field.RESOLUTION_DATE, Field.STATUS,
+        Field.SUBTASKS, Field.SUMMARY, Field.TIME_TRACKING, Field.VERSIONS,
+        Field.VOTES, Field.WATCHES, Field.WORKLOG, Field.TIME_ESTIMATE,
+        Field.TIME_SPENT, Field.CREATED_DATE, Field.UPDATED_DATE);
+
     private String key = null;
     private Map fields = null;
+    /* system fields not deserialised yet */
+    private Set<String> pending = null;
 
     /* system fields */
     private User assignee = null;
@@ -619,6 +830,7 @@ public class Issue extends Resource {
     private Votes votes = null;
     private Watches watches = null;
     private List<WorkLog> workLogs = null;
+    private int workLogTotal = -1;
     private Integer timeEstimate = null;
     private Integer timeSpent = null;
     private Date createdDate = null;
@@ -637,7 +849,27 @@ public class Issue extends Resource {
             deserialise(json);
     }
 
+    /**
+     * Creates an issue from a JSON payload, materialising only the given
+     * fields. The other fields are deserialised on first access.
+     *
+     * @param restclient REST client instance
+     * @param json JSON payload
+     * @param projection Names of the fields to deserialise eagerly or null
+     * for all of them
+     */
+    protected Issue(RestClient restclient, JSONObject json, Set<String> projection) {
+        super(restclient);
+
+        if (json != null)
+            deserialise(json, projection);
+    }
+
     private void deserialise(JSONObject json) {
+        deserialise(json, null);
+    }
+
+    private synchronized void deserialise(JSONObject json, Set<String> projection) {
         Map map = json;
 
         id = Field.getString(map.get("id"));
@@ -646,35 +878,108 @@ public class Issue extends Resource {
 
         fields = (Map)map.get("fields");
 
-        assignee = Field.getResource(User.class, fields.get(Field.ASSIGNEE), restclient);
-        attachments = Field.getResourceArray(Attachment.class, fields.get(Field.ATTACHMENT), restclient);
         changeLog = Field.getResource(ChangeLog.class, map.get(Field.CHANGE_LOG), restclient);
-        comments = Field.getComments(fields.get(Field.COMMENT), restclient);
-        components = Field.getResourceArray(Component.class, fields.get(Field.COMPONENTS), restclient);
-        description = Field.getString(fields.get(Field.DESCRIPTION));
-        dueDate = Field.getDate(fields.get(Field.DUE_DATE));
-        fixVersions = Field.getResourceArray(Version.class, fields.get(Field.FIX_VERSIONS), restclient);
-        issueLinks = Field.getResourceArray(IssueLink.class, fields.get(Field.ISSUE_LINKS), restclient);
-        issueType = Field.getResource(IssueType.class, fields.get(Field.ISSUE_TYPE), restclient);
-        labels = Field.getStringArray(fields.get(Field.LABELS));
-        parent = Field.getResource(Issue.class, fields.get(Field.PARENT), restclient);
-        priority = Field.getResource(Priority.class, fields.get(Field.PRIORITY), restclient);
-        project = Field.getResource(Project.class, fields.get(Field.PROJECT), restclient);
-        reporter = Field.getResource(User.class, fields.get(Field.REPORTER), restclient);
-        resolution = Field.getResource(Resolution.class, fields.get(Field.RESOLUTION), restclient);
-        resolutionDate = Field.getDateTime(fields.get(Field.RESOLUTION_DATE));
-        status = Field.getResource(Status.class, fields.get(Field.STATUS), restclient);
-        subtasks = Field.getResourceArray(Issue.class, fields.get(Field.SUBTASKS), restclient);
-        summary = Field.getString(fields.get(Field.SUMMARY));
-        timeTracking = Field.getTimeTracking(fields.get(Field.TIME_TRACKING));
-        versions = Field.getResourceArray(Version.class, fields.get(Field.VERSIONS), restclient);
-        votes = Field.getResource(Votes.class, fields.get(Field.VOTES), restclient);
-        watches = Field.getResource(Watches.class, fields.get(Field.WATCHES), restclient);
-        workLogs = Field.getWorkLogs(fields.get(Field.WORKLOG), restclient);
-        timeEstimate = Field.getInteger(fields.get(Field.TIME_ESTIMATE));
-        timeSpent = Field.getInteger(fields.get(Field.TIME_SPENT));
-        createdDate = Field.getDateTime(fields.get(Field.CREATED_DATE));
-        updatedDate = Field.getDateTime(fields.get(Field.UPDATED_DATE));
+
+        pending = new HashSet<String>(SYSTEM_FIELDS);
+
+        for (String name : SYSTEM_FIELDS) {
+            if (projection == null || projection.contains(name))
+                load(name);
+        }
+    }
+
+    /**
+     * Deserialises the given system field if it hasn't been yet.
+     *
+     * @param name Name of the field
+     */
+    private synchronized void load(String name) {
+        if (!pending.remove(name))
+            return;
+
+        if (name.equals(Field.ASSIGNEE))
+            assignee = Field.getResource(User.class, fields.get(Field.ASSIGNEE), restclient);
+        else if (name.equals(Field.ATTACHMENT))
+            attachments = Field.getResourceArray(Attachment.class, fields.get(Field.ATTACHMENT), restclient);
+        else if (name.equals(Field.COMMENT))
+            comments = Field.getComments(fields.get(Field.COMMENT), restclient);
+        else if (name.equals(Field.COMPONENTS))
+            components = Field.getResourceArray(Component.class, fields.get(Field.COMPONENTS), restclient);
+        else if (name.equals(Field.DESCRIPTION))
+            description = Field.getString(fields.get(Field.DESCRIPTION));
+        else if (name.equals(Field.DUE_DATE))
+            dueDate = Field.getDate(fields.get(Field.DUE_DATE));
+        else if (name.equals(Field.FIX_VERSIONS))
+            fixVersions = Field.getResourceArray(Version.class, fields.get(Field.FIX_VERSIONS), restclient);
+        else if (name.equals(Field.ISSUE_LINKS))
+            issueLinks = Field.getResourceArray(IssueLink.class, fields.get(Field.ISSUE_LINKS), restclient);
+        else if (name.equals(Field.ISSUE_TYPE))
+            issueType = Field.getResource(IssueType.class, fields.get(Field.ISSUE_TYPE), restclient);
+        else if (name.equals(Field.LABELS))
+            labels = Field.getStringArray(fields.get(Field.LABELS));
+        else if (name.equals(Field.PARENT))
+            parent = Field.getResource(Issue.class, fields.get(Field.PARENT), restclient);
+        else if (name.equals(Field.PRIORITY))
+            priority = Field.getResource(Priority.class, fields.get(Field.PRIORITY), restclient);
+        else if (name.equals(Field.PROJECT))
+            project = Field.getResource(Project.class, fields.get(Field.PROJECT), restclient);
+        else if (name.equals(Field.REPORTER))
+            reporter = Field.getResource(User.class, fields.get(Field.REPORTER), restclient);
+        else if (name.equals(Field.RESOLUTION))
+            resolution = Field.getResource(Resolution.class, fields.get(Field.RESOLUTION), restclient);
+        else if (name.equals(Field.RESOLUTION_DATE))
+            resolutionDate = Field.getDateTime(fields.get(Field.RESOLUTION_DATE));
+        else if (name.equals(Field.STATUS))
+            status = Field.getResource(Status.class, fields.get(Field.STATUS), restclient);
+        else if (name.equals(Field.SUBTASKS))
+            subtasks = Field.getResourceArray(Issue.class, fields.get(Field.SUBTASKS), restclient);
+        else if (name.equals(Field.SUMMARY))
+            summary = Field.getString(fields.get(Field.SUMMARY));
+        else if (name.equals(Field.TIME_TRACKING))
+            timeTracking = Field.getTimeTracking(fields.get(Field.TIME_TRACKING));
+        else if (name.equals(Field.VERSIONS))
+            versions = Field.getResourceArray(Version.class, fields.get(Field.VERSIONS), restclient);
+        else if (name.equals(Field.VOTES))
+            votes = Field.getResource(Votes.class, fields.get(Field.VOTES), restclient);
+        else if (name.equals(Field.WATCHES))
+            watches = Field.getResource(Watches.class, fields.get(Field.WATCHES), restclient);
+        else if (name.equals(Field.WORKLOG)) {
+            workLogs = Field.getWorkLogs(fields.get(Field.WORKLOG), restclient);
+            workLogTotal = Field.getWorkLogTotal(fields.get(Field.WORKLOG));
+        }
+        else if (name.equals(Field.TIME_ESTIMATE))
+            timeEstimate = Field.getInteger(fields.get(Field.TIME_ESTIMATE));
+        else if (name.equals(Field.TIME_SPENT))
+            timeSpent = Field.getInteger(fields.get(Field.TIME_SPENT));
+        else if (name.equals(Field.CREATED_DATE))
+            createdDate = Field.getDateTime(fields.get(Field.CREATED_DATE));
+        else if (name.equals(Field.UPDATED_DATE))
+            updatedDate = Field.getDateTime(fields.get(Field.UPDATED_DATE));
+    }
+
+    /**
+     * Gets the fields to materialise eagerly for a list of included fields.
+     *
+     * @param includedFields Included fields as passed to the REST API
+     *
+     * @return the field names or null when all fields may be present
+     */
+    static Set<String> getProjection(String includedFields) {
+        if (includedFields == null)
+            return null;
+
+        Set<String> projection = new HashSet<String>();
+
+        for (String name : includedFields.split(",")) {
+            name = name.trim();
+
+            if (name.startsWith("*") || name.startsWith("-"))
+                return null;
+
+            projection.add(name);
+        }
+
+        return projection;
     }
 
     private static String getRestUri(String key) {
@@ -1174,7 +1479,7 @@ public class Issue extends Resource {
                     throws JiraException {
 
         final String j = jql;
-        JSON result = null;
+        SearchResult sr = null;
 
         try {
             Map<String, String> queryParams = new HashMap<String, String>() {
@@ -1196,24 +1501,129 @@ public class Issue extends Resource {
             }
 
             URI searchUri = restclient.buildURI(getBaseUri() + "search", queryParams);
-            result = restclient.get(searchUri);
+            sr = restclient.get(searchUri, new SearchResultHandler(restclient, getProjection(includedFields)));
         } catch (Exception ex) {
             throw new JiraException("Failed to search issues", ex);
         }
 
-        if (!(result instanceof JSONObject)) {
+        if (sr == null) {
             throw new JiraException("JSON payload is malformed");
         }
 
-        SearchResult sr = new SearchResult();
-        Map map = (Map) result;
+        return sr;
+    }
+
+    /**
+     * Builds a search result while the response is being read, so only one
+     * issue at a time exists in its JSON form. Only the included fields are
+     * deserialised eagerly.
+     */
+    static final class SearchResultHandler implements IJsonStreamHandler<SearchResult> {
 
-        sr.start = Field.getInteger(map.get("startAt"));
-        sr.max = Field.getInteger(map.get("maxResults"));
-        sr.total = Field.getInteger(map.get("total"));
-        sr.issues = Field.getResourceArray(Issue.class, map.get("issues"), restclient);
+        private final RestClient restclient;
+        private final Set<String> projection;
 
-        return sr;
+        SearchResultHandler(RestClient restclient, Set<String> projection) {
+            this.restclient = restclient;
+            this.projection = projection;
+        }
+
+        public SearchResult handle(JsonParser parser) throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                return null;
+
+            SearchResult sr = new SearchResult();
+            sr.issues = new ArrayList<Issue>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+
+                if (name.equals("startAt"))
+                    sr.start = JsonStream.getInteger(parser);
+                else if (name.equals("maxResults"))
+                    sr.max = JsonStream.getInteger(parser);
+                else if (name.equals("total"))
+                    sr.total = JsonStream.getInteger(parser);
+                else if (name.equals("issues") && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    while (JsonStream.nextElement(parser)) {
+                        Object issue = JsonStream.readCurrentValue(parser);
+                        if (issue instanceof JSONObject && !((JSONObject)issue).isNullObject())
+                            sr.issues.add(new Issue(restclient, (JSONObject)issue, projection));
+                    }
+                } else
+                    parser.skipChildren();
+            }
+
+            return sr;
+        }
+    }
+
+    /**
+     * Reads the work logs of a work log page while the response is being
+     * read.
+     */
+    static final class WorkLogsHandler implements IJsonStreamHandler<WorkLogResult> {
+
+        private final RestClient restclient;
+
+        WorkLogsHandler(RestClient restclient) {
+            this.restclient = restclient;
+        }
+
+        public WorkLogResult handle(JsonParser parser) throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                return null;
+
+            WorkLogResult wr = new WorkLogResult();
+            wr.workLogs = new ArrayList<WorkLog>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+
+                if (name.equals("startAt"))
+                    wr.start = JsonStream.getInteger(parser);
+                else if (name.equals("maxResults"))
+                    wr.max = JsonStream.getInteger(parser);
+                else if (name.equals("total"))
+                    wr.total = JsonStream.getInteger(parser);
+                else if (name.equals("worklogs") && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    while (JsonStream.nextElement(parser)) {
+                        WorkLog workLog = Field.getResource(WorkLog.class, JsonStream.readCurrentValue(parser), restclient);
+                        if (workLog != null)
+                            wr.workLogs.add(workLog);
+                    }
+                } else
+                    parser.skipChildren();
+            }
+
+            return wr;
+        }
+    }
+
+    /**
+     * Search for issues with the given query, retrieving the results page by
+     * page as the returned iterator is advanced.
+     *
+     * @param restclient REST client instance
+     *
+     * @param jql JQL statement
+     *
+     * @param includedFields Specifies which issue fields will be included in
+     * the result.
+     *
+     * @param expandFields fields to expand when obtaining the issue
+     *
+     * @param pageSize if non-<code>null</code>, defines the maximum number of
+     * results requested per page (the server may return less)
+     *
+     * @return a search iterator positioned before the first page
+     */
+    public static SearchIterator searchPages(RestClient restclient, String jql,
+            String includedFields, String expandFields, Integer pageSize) {
+
+        return new SearchIterator(restclient, jql, includedFields, expandFields, pageSize, 0);
     }
 
     /**
@@ -1373,58 +1783,72 @@ public class Issue extends Resource {
     }
 
     public User getAssignee() {
+        load(Field.ASSIGNEE);
         return assignee;
     }
 
     public List<Attachment> getAttachments() {
+        load(Field.ATTACHMENT);
         return attachments;
     }
 
     public List<Comment> getComments() {
+        load(Field.COMMENT);
         return comments;
     }
 
     public List<Component> getComponents() {
+        load(Field.COMPONENTS);
         return components;
     }
 
     public String getDescription() {
+        load(Field.DESCRIPTION);
         return description;
     }
 
     public Date getDueDate() {
+        load(Field.DUE_DATE);
         return dueDate;
     }
 
     public List<Version> getFixVersions() {
+        load(Field.FIX_VERSIONS);
         return fixVersions;
     }
 
     public List<IssueLink> getIssueLinks() {
+        load(Field.ISSUE_LINKS);
         return issueLinks;
     }
 
     public IssueType getIssueType() {
+        load(Field.ISSUE_TYPE);
         return issueType;
     }
 
     public List<String> getLabels() {
+        load(Field.LABELS);
         return labels;
     }
 
     public Issue getParent() {
+        load(Field.PARENT);
         return parent;
     }
 
     public Priority getPriority() {
+        load(Field.PRIORITY);
         return priority;
     }
 
     public Project getProject() {
+        load(Field.PROJECT);
         return project;
     }
 
     public User getReporter() {
+        load(Field.REPORTER);
         return reporter;
     }
     
@@ -1443,72 +1867,224 @@ public class Issue extends Resource {
     }
 
     public Resolution getResolution() {
+        load(Field.RESOLUTION);
         return resolution;
     }
 
     public Date getResolutionDate() {
+        load(Field.RESOLUTION_DATE);
         return resolutionDate;
     }
 
     public Status getStatus() {
+        load(Field.STATUS);
         return status;
     }
 
     public List<Issue> getSubtasks() {
+        load(Field.SUBTASKS);
         return subtasks;
     }
 
     public String getSummary() {
+        load(Field.SUMMARY);
         return summary;
     }
 
     public TimeTracking getTimeTracking() {
+        load(Field.TIME_TRACKING);
         return timeTracking;
     }
 
     public List<Version> getVersions() {
+        load(Field.VERSIONS);
         return versions;
     }
 
     public Votes getVotes() {
+        load(Field.VOTES);
         return votes;
     }
 
     public Watches getWatches() {
+        load(Field.WATCHES);
         return watches;
     }
 
     public List<WorkLog> getWorkLogs() {
+        load(Field.WORKLOG);
         return workLogs;
     }
 
+    /**
+     * Gets the number of work logs the issue has. The work log field holds
+     * only the first few of them, when it holds fewer than this number the
+     * rest must be retrieved with {@link #getAllWorkLogs()}.
+     *
+     * @return the total or -1 when the work log field wasn't retrieved
+     */
+    public int getWorkLogTotal() {
+        load(Field.WORKLOG);
+        return workLogTotal;
+    }
+
+    /**
+     * Checks whether the work log field holds all the work logs of the
+     * issue, so no further request is needed to get them.
+     *
+     * @return true when the embedded work logs are complete
+     */
+    public boolean hasAllWorkLogs() {
+        load(Field.WORKLOG);
+        return workLogTotal >= 0 && workLogs != null && workLogs.size() >= workLogTotal;
+    }
+
+    /**
+     * Gets all the work logs of the issue, page by page until the reported
+     * total is reached.
+     *
+     * @return the work logs
+     *
+     * @throws JiraException when a page can't be retrieved
+     */
     public List<WorkLog> getAllWorkLogs() throws JiraException {
-        JSONObject obj;
+        return getAllWorkLogs(null, null, null);
+    }
+
+    /**
+     * Gets the work logs started within the given window, page by page until
+     * the reported total is reached. The server filters the work logs, so
+     * only the window is transferred no matter how old the issue is. Servers
+     * that ignore the window return more work logs than asked for, callers
+     * still have to check the start dates.
+     *
+     * @param startedAfter if non-<code>null</code>, only work logs started
+     * at or after this time are returned
+     * @param startedBefore if non-<code>null</code>, only work logs started
+     * before this time are returned
+     *
+     * @return the work logs
+     *
+     * @throws JiraException when a page can't be retrieved
+     */
+    public List<WorkLog> getAllWorkLogs(Date startedAfter, Date startedBefore)
+            throws JiraException {
+
+        return getAllWorkLogs(startedAfter, startedBefore, null);
+    }
+
+    /**
+     * Gets the work logs started within the given window, requesting the
+     * pages after the first one concurrently on the given executor.
+     *
+     * @param startedAfter if non-<code>null</code>, only work logs started
+     * at or after this time are returned
+     * @param startedBefore if non-<code>null</code>, only work logs started
+     * before this time are returned
+     * @param executor if non-<code>null</code>, runs the requests of the
+     * later pages; must not be the executor the caller itself runs on when
+     * that one is bounded, or the waiting callers may starve the pages
+     *
+     * @return the work logs
+     *
+     * @throws JiraException when a page can't be retrieved
+     */
+    public List<WorkLog> getAllWorkLogs(Date startedAfter, Date startedBefore,
+            ExecutorService executor) throws JiraException {
+
+        List<WorkLog> results = new ArrayList<WorkLog>();
+        WorkLogIterator pages = getWorkLogPages(startedAfter, startedBefore, null, executor);
+
+        while (pages.hasNext())
+            results.addAll(pages.next().workLogs);
+
+        return results;
+    }
+
+    /**
+     * Pages through the work logs started within the given window. The
+     * pages can be consumed as they arrive instead of waiting for all the
+     * work logs of a huge issue.
+     *
+     * @param startedAfter if non-<code>null</code>, only work logs started
+     * at or after this time are returned
+     * @param startedBefore if non-<code>null</code>, only work logs started
+     * before this time are returned
+     * @param pageSize if non-<code>null</code>, defines the maximum number
+     * of work logs requested per page
+     * @param executor if non-<code>null</code>, the pages after the first one
+     * are requested concurrently on this executor
+     *
+     * @return a work log iterator positioned before the first page
+     */
+    public WorkLogIterator getWorkLogPages(Date startedAfter, Date startedBefore,
+            Integer pageSize, ExecutorService executor) {
+
+        return new WorkLogIterator(this, startedAfter, startedBefore, pageSize, executor);
+    }
+
+    /**
+     * Gets one page of the work logs started within the given window.
+     *
+     * @param startedAfter if non-<code>null</code>, only work logs started
+     * at or after this time are returned
+     * @param startedBefore if non-<code>null</code>, only work logs started
+     * before this time are returned
+     * @param maxResults if non-<code>null</code>, defines the maximum number
+     * of work logs on the page (the server may return less)
+     * @param startAt if non-<code>null</code>, defines the first work log to
+     * return
+     *
+     * @return a work log page structure
+     *
+     * @throws JiraException when the page can't be retrieved
+     */
+    public WorkLogResult getWorkLogPage(Date startedAfter, Date startedBefore,
+            Integer maxResults, Integer startAt) throws JiraException {
+
+        WorkLogResult wr;
+
         try {
-            URI uri = restclient.buildURI(getRestUri(key) + "/worklog");
-            JSON json = restclient.get(uri);
-            obj = (JSONObject) json;
+            Map<String, String> queryParams = new HashMap<String, String>();
+            if (startedAfter != null)
+                queryParams.put("startedAfter", String.valueOf(startedAfter.getTime()));
+            if (startedBefore != null)
+                queryParams.put("startedBefore", String.valueOf(startedBefore.getTime()));
+            if (maxResults != null)
+                queryParams.put("maxResults", String.valueOf(maxResults));
+            if (startAt != null)
+                queryParams.put("startAt", String.valueOf(startAt));
+
+            URI uri = restclient.buildURI(getRestUri(key) + "/worklog", queryParams);
+            wr = restclient.get(uri, new WorkLogsHandler(restclient));
         } catch (Exception ex) {
             throw new JiraException("Failed to get worklog for issue "
                     + key, ex);
         }
 
-        return Field.getWorkLogs(obj, restclient);
+        if (wr == null)
+            throw new JiraException("JSON payload is malformed");
+
+        return wr;
     }
 
     public Integer getTimeSpent() {
+        load(Field.TIME_SPENT);
         return timeSpent;
     }
 
     public Integer getTimeEstimate() {
+        load(Field.TIME_ESTIMATE);
         return timeEstimate;
     }
 
     public Date getCreatedDate() {
+        load(Field.CREATED_DATE);
         return createdDate;
     }
 
     public Date getUpdatedDate() {
+        load(Field.UPDATED_DATE);
         return updatedDate;
     }
 
@@ -26,20 +26,78 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import net.sf.json.JSON;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 
 /**
  * A simple JIRA REST client.
  */
 public class JiraClient {
 
+    /**
+     * Connection pool settings for a client shared by several threads.
+     */
+    public static final class PoolOptions {
+        /** Maximum number of connections kept to the JIRA host. */
+        public int maxPerRoute = 10;
+        /** Maximum number of connections in the whole pool. */
+        public int maxTotal = 20;
+        /** Time in milliseconds after which a connection is never reused. */
+        public long timeToLive = 60000;
+        /** Time in milliseconds after which an unused connection is closed. */
+        public long idleTimeout = 30000;
+    }
+
+    /**
+     * Periodically closes expired and idle connections of a pool, so the
+     * client doesn't try to reuse a socket the server has already dropped.
+     */
+    private static final class IdleConnectionEvictor extends Thread {
+        private final ClientConnectionManager connManager;
+        private final long idleTimeout;
+        private volatile boolean shutdown = false;
+
+        private IdleConnectionEvictor(ClientConnectionManager connManager, long idleTimeout) {
+            super("jira-client-connection-evictor");
+            setDaemon(true);
+            this.connManager = connManager;
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    synchronized (this) {
+                        wait(Math.max(idleTimeout / 2, 1000));
+                    }
+                    connManager.closeExpiredConnections();
+                    connManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException ex) {
+                /* terminate */
+            }
+        }
+
+        private void shutdown() {
+            shutdown = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
     private RestClient restclient = null;
     private String username = null;
+    private IdleConnectionEvictor evictor = null;
 
     /**
      * Creates a JIRA client.
@@ -59,7 +117,34 @@ public class JiraClient {
      * @throws JiraException 
      */
     public JiraClient(String uri, ICredentials creds) throws JiraException {
-        DefaultHttpClient httpclient = new DefaultHttpClient();
+        this(new DefaultHttpClient(), uri, creds);
+    }
+
+    /**
+     * Creates an authenticated JIRA client backed by a connection pool. The
+     * client may be used from several threads at once and keeps connections
+     * to the server alive between requests. Call {@link #shutdown()} when
+     * the client is no longer needed.
+     *
+     * @param uri Base URI of the JIRA server
+     * @param creds Credentials to authenticate with
+     * @param pool Connection pool settings
+     * @throws JiraException 
+     */
+    public JiraClient(String uri, ICredentials creds, PoolOptions pool) throws JiraException {
+        this(createPooledHttpClient(pool), uri, creds);
+
+        RateLimiter.Options limits = new RateLimiter.Options();
+        limits.maxConcurrency = pool.maxPerRoute;
+        restclient.setRateLimiter(new RateLimiter(limits));
+
+        evictor = new IdleConnectionEvictor(
+            restclient.getHttpClient().getConnectionManager(), pool.idleTimeout);
+        evictor.start();
+    }
+
+    private JiraClient(DefaultHttpClient httpclient, String uri, ICredentials creds)
+        throws JiraException {
 
         restclient = new RestClient(httpclient, creds, URI.create(uri));
 
@@ -70,6 +155,26 @@ public class JiraClient {
         }
     }
 
+    private static DefaultHttpClient createPooledHttpClient(PoolOptions pool) {
+        PoolingClientConnectionManager connManager = new PoolingClientConnectionManager(
+            SchemeRegistryFactory.createDefault(), pool.timeToLive, TimeUnit.MILLISECONDS);
+        connManager.setMaxTotal(pool.maxTotal);
+        connManager.setDefaultMaxPerRoute(pool.maxPerRoute);
+
+        return new DefaultHttpClient(connManager);
+    }
+
+    /**
+     * Closes all connections held by the client and stops the idle
+     * connection eviction of a pooled client.
+     */
+    public void shutdown() {
+        if (evictor != null)
+            evictor.shutdown();
+
+        restclient.getHttpClient().getConnectionManager().shutdown();
+    }
+
     /**
      * Creates a new issue in the given project.
      *
@@ -349,6 +454,70 @@ public class JiraClient {
           startAt);
     }
 
+    /**
+     * Search for issues with the given query, retrieving the results page by
+     * page. Unlike {@link #searchIssues(String, String, Integer, Integer)}
+     * the whole result set is returned regardless of the page size limit
+     * enforced by the server.
+     *
+     * @param jql JQL statement
+     *
+     * @param includedFields Specifies which issue fields will be included in
+     * the result.
+     *
+     * @param expandFields Specifies with issue fields should be expanded
+     *
+     * @param pageSize if non-<code>null</code>, defines the maximum number of
+     * results requested per page
+     *
+     * @return a search iterator positioned before the first page
+     */
+    public Issue.SearchIterator searchIssuePages(String jql, String includedFields,
+            String expandFields, Integer pageSize) {
+
+        return Issue.searchPages(restclient, jql, includedFields, expandFields, pageSize);
+    }
+
+    /**
+     * Retrieves the IDs of all work logs created or updated since the given
+     * time.
+     *
+     * @param since Milliseconds since the epoch
+     *
+     * @return the changed work log IDs and the time to continue from
+     *
+     * @throws JiraException when the retrieval fails
+     */
+    public WorkLog.ChangedIds getUpdatedWorkLogIds(long since) throws JiraException {
+        return WorkLog.getUpdatedIds(restclient, since);
+    }
+
+    /**
+     * Retrieves the IDs of all work logs deleted since the given time.
+     *
+     * @param since Milliseconds since the epoch
+     *
+     * @return the deleted work log IDs and the time to continue from
+     *
+     * @throws JiraException when the retrieval fails
+     */
+    public WorkLog.ChangedIds getDeletedWorkLogIds(long since) throws JiraException {
+        return WorkLog.getDeletedIds(restclient, since);
+    }
+
+    /**
+     * Retrieves work logs in bulk by their IDs.
+     *
+     * @param ids Work log IDs
+     *
+     * @return the work logs found
+     *
+     * @throws JiraException when the retrieval fails
+     */
+    public List<WorkLog> getWorkLogs(List<Long> ids) throws JiraException {
+        return WorkLog.getByIds(restclient, ids);
+    }
+
     /**
      *
      * @return a list of all priorities available in the Jira installation
@@ -0,0 +1,204 @@
+/**
+ * jira-client - a simple JIRA REST client
+ * Copyright (c) 2013 Bob Carroll (bob.carroll@alum.rit.edu)
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.rcarz.jiraclient;
+
+import java.io.IOException;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONFunction;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Utility functions for reading JSON from a token stream.
+ */
+public final class JsonStream {
+
+    /**
+     * Shared parser factory, it is thread-safe once configured.
+     */
+    public static final JsonFactory FACTORY = new JsonFactory();
+
+    private JsonStream() { }
+
+    /**
+     * Reads the value starting at the next token into the same structure
+     * json-lib builds when parsing text.
+     *
+     * @param parser JSON parser
+     *
+     * @return a JSONObject, JSONArray, JSONNull, String, Boolean or Number
+     *
+     * @throws IOException when reading or parsing fails
+     */
+    public static Object readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+
+        if (token == null)
+            throw new JsonParseException(parser, "Unexpected end of JSON input");
+
+        return readCurrentValue(parser);
+    }
+
+    /**
+     * Reads the value starting at the current token.
+     *
+     * @param parser JSON parser positioned at the first token of the value
+     *
+     * @return a JSONObject, JSONArray, JSONNull, String, Boolean or Number
+     *
+     * @throws IOException when reading or parsing fails
+     */
+    public static Object readCurrentValue(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                return readCurrentObject(parser);
+            case START_ARRAY:
+                JSONArray array = new JSONArray();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.getCurrentToken() == JsonToken.VALUE_STRING)
+                        array.element(toElement(parser.getText()));
+                    else
+                        array.element(readCurrentValue(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return Double.valueOf(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return JSONNull.getInstance();
+            default:
+                throw new JsonParseException(parser, "Unexpected token " + parser.getCurrentToken());
+        }
+    }
+
+    /**
+     * Reads the object starting at the current token.
+     *
+     * @param parser JSON parser positioned at the start of an object
+     *
+     * @return a JSONObject instance
+     *
+     * @throws IOException when reading or parsing fails
+     */
+    public static JSONObject readCurrentObject(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT)
+            throw new JsonParseException(parser, "Expected a JSON object");
+
+        JSONObject object = new JSONObject();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+
+            if (parser.getCurrentToken() == JsonToken.VALUE_STRING)
+                object.element(name, toProperty(parser.getText()));
+            else
+                object.element(name, readCurrentValue(parser));
+        }
+
+        return object;
+    }
+
+    /**
+     * Prepares a string for {@link JSONObject#element(String, Object)},
+     * which would turn a string that looks like JSON or a function into a
+     * JSONNull, JSONArray, JSONObject or JSONFunction. Such a string is
+     * quoted the way json-lib's own parser does, so it stays a string.
+     *
+     * @param text string value of a property, may be null
+     *
+     * @return the value to put in the object
+     */
+    public static String toProperty(String text) {
+        if (text != null && (JSONUtils.mayBeJSON(text) || JSONUtils.isFunction(text)))
+            return JSONUtils.DOUBLE_QUOTE + text + JSONUtils.DOUBLE_QUOTE;
+
+        return text;
+    }
+
+    /**
+     * Prepares a string for {@link JSONArray#element(Object)} the way
+     * json-lib's own parser does: the string "null" stays a string and a
+     * function stays a function. Unlike in an object, json-lib parses a
+     * string that looks like an array or object into one.
+     */
+    private static Object toElement(String text) {
+        if (text.equals(JSONNull.getInstance().toString()))
+            return JSONUtils.DOUBLE_QUOTE + text + JSONUtils.DOUBLE_QUOTE;
+
+        if (JSONUtils.isFunction(text))
+            return JSONFunction.parse(text);
+
+        return text;
+    }
+
+    /**
+     * Advances to the next element of the array the parser is in.
+     *
+     * @param parser JSON parser positioned at the start of an array or at
+     * the last token of one of its elements
+     *
+     * @return true when the parser is at the first token of an element,
+     * false at the end of the array
+     *
+     * @throws IOException when reading or parsing fails
+     */
+    public static boolean nextElement(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+
+        if (token == null)
+            throw new JsonParseException(parser, "Unexpected end of JSON input");
+
+        return token != JsonToken.END_ARRAY;
+    }
+
+    /**
+     * Reads an integer in the same way {@link Field#getInteger(Object)}
+     * treats a parsed value.
+     *
+     * @param parser JSON parser positioned at the value
+     *
+     * @return the integer or 0 if the value isn't an integer
+     *
+     * @throws IOException when reading or parsing fails
+     */
+    public static int getInteger(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT
+                && parser.getNumberType() == JsonParser.NumberType.INT)
+            return parser.getIntValue();
+
+        parser.skipChildren();
+        return 0;
+    }
+}
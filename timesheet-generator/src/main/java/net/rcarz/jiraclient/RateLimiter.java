@@ -0,0 +1,335 @@
+/**
+ * jira-client - a simple JIRA REST client
+ * Copyright (c) 2013 Bob Carroll (bob.carroll@alum.rit.edu)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.rcarz.jiraclient;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.impl.cookie.DateParseException;
+import org.apache.http.impl.cookie.DateUtils;
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Paces the requests of a REST client to what the server allows. A token
+ * bucket bounds the request rate and an AIMD limit bounds the number of
+ * requests in flight: the limit grows by one per window of successful
+ * requests and is halved when the server answers 429 or 503. The bucket
+ * follows the X-RateLimit-* headers of JIRA Cloud, and Retry-After or
+ * X-RateLimit-Reset pause all requests until the given time. The state is
+ * guarded by a lock rather than a monitor, so a virtual thread waiting for
+ * its turn doesn't pin its carrier thread.
+ */
+public class RateLimiter {
+
+    /**
+     * Rate limiter settings.
+     */
+    public static final class Options {
+        /** Requests per second, 0 for no limit until the server reports its fill rate. */
+        public double rate = 0;
+        /** Number of requests that may be sent at once when the bucket is full. */
+        public int burst = 10;
+        /** Upper bound of the concurrency limit, also its initial value. */
+        public int maxConcurrency = 20;
+        /** Lower bound of the concurrency limit. */
+        public int minConcurrency = 1;
+        /** Number of times a throttled GET is retried before giving up. */
+        public int maxRetries = 5;
+        /** Backoff in milliseconds of the first retry, doubled with every further retry. */
+        public long baseDelay = 500;
+        /** Maximum backoff in milliseconds. */
+        public long maxDelay = 60000;
+    }
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Options options;
+    private final Random random = new Random();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private double rate;
+    private double capacity;
+    private double tokens;
+    private long refilled;
+    private double limit;
+    private int inFlight = 0;
+    private long pausedUntil;
+    private long lastDecrease;
+    private long throttled = 0;
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param options Rate limiter settings
+     */
+    public RateLimiter(Options options) {
+        this.options = options;
+        this.rate = options.rate;
+        this.capacity = Math.max(options.burst, 1);
+        this.tokens = capacity;
+        this.limit = Math.max(options.maxConcurrency, options.minConcurrency);
+
+        /* nanoTime has an arbitrary origin, so the times start from now:
+           not paused and the first throttled response already decreases */
+        long now = System.nanoTime();
+        this.refilled = now;
+        this.pausedUntil = now;
+        this.lastDecrease = now - TimeUnit.MILLISECONDS.toNanos(options.baseDelay) - 1;
+    }
+
+    /**
+     * Checks whether the server asks the client to slow down.
+     *
+     * @param status HTTP status code
+     *
+     * @return true for 429 Too Many Requests and 503 Service Unavailable
+     */
+    public static boolean isThrottled(int status) {
+        return status == 429 || status == 503;
+    }
+
+    /**
+     * Waits until a request may be sent. Every call must be followed by a
+     * call to {@link #release(HttpResponse)} once the response is read.
+     *
+     * @throws InterruptedException when the thread is interrupted while
+     * waiting
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+
+                if (pausedUntil - now > 0)
+                    changed.awaitNanos(pausedUntil - now);
+                else if (inFlight >= (int) limit)
+                    changed.await();
+                else if (rate > 0 && tokens < 1)
+                    changed.awaitNanos((long) Math.ceil((1 - tokens) * NANOS_PER_SECOND / rate));
+                else {
+                    if (rate > 0)
+                        tokens -= 1;
+                    inFlight++;
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a request and adapts the limits to its response.
+     *
+     * @param resp Response of the request or null when it failed without
+     * one
+     */
+    public void release(HttpResponse resp) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (resp != null)
+                adapt(resp, System.nanoTime());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adapt(HttpResponse resp, long now) {
+        updateBucket(resp, now);
+
+        if (isThrottled(resp.getStatusLine().getStatusCode())) {
+            throttled++;
+
+            /* one decrease per round trip, not one per throttled request in flight */
+            if (now - lastDecrease > TimeUnit.MILLISECONDS.toNanos(options.baseDelay)) {
+                limit = Math.max(options.minConcurrency, limit / 2);
+                lastDecrease = now;
+            }
+
+            long pause = getServerDelay(resp);
+            if (pause > 0)
+                pausedUntil = Math.max(pausedUntil, now + TimeUnit.MILLISECONDS.toNanos(pause));
+        } else if (resp.getStatusLine().getStatusCode() < 300)
+            limit = Math.min(options.maxConcurrency, limit + 1 / limit);
+    }
+
+    /**
+     * Computes how long to wait before retrying a throttled request: the
+     * time the server asks for plus a little jitter, or an exponential
+     * backoff with full jitter when the server gives no time.
+     *
+     * @param resp The throttled response
+     * @param attempt Number of retries made so far
+     *
+     * @return delay in milliseconds
+     */
+    public long getRetryDelay(HttpResponse resp, int attempt) {
+        long jitter;
+        synchronized (random) {
+            jitter = (long) (random.nextDouble() * options.baseDelay);
+        }
+
+        long delay = getServerDelay(resp);
+        if (delay > 0)
+            return Math.min(delay, options.maxDelay) + jitter;
+
+        long ceiling = options.baseDelay << Math.min(attempt, 20);
+        synchronized (random) {
+            return (long) (random.nextDouble() * Math.min(ceiling, options.maxDelay));
+        }
+    }
+
+    /**
+     * @return number of retries a throttled GET gets
+     */
+    public int getMaxRetries() {
+        return options.maxRetries;
+    }
+
+    /**
+     * @return current bound of requests in flight
+     */
+    public int getConcurrencyLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return current rate in requests per second, 0 when unlimited
+     */
+    public double getRate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of throttled responses seen
+     */
+    public long getThrottled() {
+        lock.lock();
+        try {
+            return throttled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        if (rate > 0)
+            tokens = Math.min(capacity, tokens + (now - refilled) * rate / NANOS_PER_SECOND);
+
+        refilled = now;
+    }
+
+    /**
+     * Syncs the bucket with the X-RateLimit-* headers of JIRA Cloud.
+     */
+    private void updateBucket(HttpResponse resp, long now) {
+        double fillRate = getDouble(resp, "X-RateLimit-FillRate");
+        double interval = getDouble(resp, "X-RateLimit-Interval-Seconds");
+        double max = getDouble(resp, "X-RateLimit-Limit");
+        double remaining = getDouble(resp, "X-RateLimit-Remaining");
+
+        if (fillRate > 0) {
+            refill(now);
+            rate = fillRate / (interval > 0 ? interval : 1);
+        }
+
+        if (max > 0)
+            capacity = max;
+
+        if (remaining >= 0 && rate > 0)
+            tokens = Math.min(tokens, remaining);
+
+        if (remaining == 0) {
+            long reset = getResetDelay(resp);
+            if (reset > 0)
+                pausedUntil = Math.max(pausedUntil, now + TimeUnit.MILLISECONDS.toNanos(reset));
+        }
+    }
+
+    /**
+     * @return milliseconds to wait as given by Retry-After or
+     * X-RateLimit-Reset, 0 when the response has neither
+     */
+    private static long getServerDelay(HttpResponse resp) {
+        Header retryAfter = resp.getFirstHeader("Retry-After");
+
+        if (retryAfter != null) {
+            String value = retryAfter.getValue().trim();
+
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+            } catch (NumberFormatException ex) {
+                try {
+                    return Math.max(0, DateUtils.parseDate(value).getTime() - System.currentTimeMillis());
+                } catch (DateParseException dpe) {
+                    /* fall back to the reset header or the backoff */
+                }
+            }
+        }
+
+        return getResetDelay(resp);
+    }
+
+    private static long getResetDelay(HttpResponse resp) {
+        Header reset = resp.getFirstHeader("X-RateLimit-Reset");
+
+        if (reset == null)
+            return 0;
+
+        try {
+            long millis = ISODateTimeFormat.dateTimeParser().parseMillis(reset.getValue().trim());
+            return Math.max(0, millis - System.currentTimeMillis());
+        } catch (IllegalArgumentException ex) {
+            return 0;
+        }
+    }
+
+    private static double getDouble(HttpResponse resp, String name) {
+        Header header = resp.getFirstHeader(name);
+
+        if (header == null)
+            return -1;
+
+        try {
+            return Double.parseDouble(header.getValue().trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * jira-client - a simple JIRA REST client
+ * Copyright (c) 2013 Bob Carroll (bob.carroll@alum.rit.edu)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.rcarz.jiraclient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Shares one instance of a resource among all the issues and work logs
+ * referring to it. A month of work logs names the same few users, projects
+ * and issue types over and over, so they are deserialised once per client
+ * instead of once per reference. Resources are identified by their self URL;
+ * resources without one are never shared.
+ */
+public class ResourceCache {
+
+    /** Number of resources after which no more are cached. */
+    public static final int MAX_SIZE = 10000;
+
+    private final Map<Class<?>, ConcurrentHashMap<String, Resource>> resources =
+        new ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Resource>>();
+
+    /**
+     * Creates a cache sharing users, projects and issue types.
+     */
+    public ResourceCache() {
+        resources.put(User.class, new ConcurrentHashMap<String, Resource>());
+        resources.put(Project.class, new ConcurrentHashMap<String, Resource>());
+        resources.put(IssueType.class, new ConcurrentHashMap<String, Resource>());
+    }
+
+    /**
+     * Checks whether resources of the type are shared.
+     *
+     * @param type Resource data type
+     *
+     * @return true if the type is cached
+     */
+    public boolean isCached(Class<?> type) {
+        return resources.containsKey(type);
+    }
+
+    /**
+     * Gets the shared instance of a resource.
+     *
+     * @param type Resource data type
+     * @param json JSON payload of the resource
+     *
+     * @return the cached resource or null when there is none
+     */
+    public <T extends Resource> T get(Class<T> type, JSONObject json) {
+        Map<String, Resource> cached = resources.get(type);
+        String self = Field.getString(json.get("self"));
+
+        if (cached == null || self == null)
+            return null;
+
+        return type.cast(cached.get(self));
+    }
+
+    /**
+     * Shares a freshly deserialised resource. When another thread shared the
+     * same resource meanwhile, that instance wins.
+     *
+     * @param type Resource data type
+     * @param resource The resource
+     *
+     * @return the shared instance
+     */
+    public <T extends Resource> T put(Class<T> type, T resource) {
+        ConcurrentHashMap<String, Resource> cached = resources.get(type);
+        String self = resource.getSelf();
+
+        if (cached == null || self == null || size() >= MAX_SIZE)
+            return resource;
+
+        Resource previous = cached.putIfAbsent(self, resource);
+        return previous != null ? type.cast(previous) : resource;
+    }
+
+    /**
+     * @return number of cached resources
+     */
+    public int size() {
+        int size = 0;
+
+        for (ConcurrentHashMap<String, Resource> cached : resources.values())
+            size += cached.size();
+
+        return size;
+    }
+
+    /**
+     * Forgets all cached resources, e.g. after they were changed in JIRA.
+     */
+    public void clear() {
+        for (ConcurrentHashMap<String, Resource> cached : resources.values())
+            cached.clear();
+    }
+}
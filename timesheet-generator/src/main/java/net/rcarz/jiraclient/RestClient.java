@@ -21,18 +21,28 @@ package net.rcarz.jiraclient;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import net.sf.json.JSON;
 import net.sf.json.JSONObject;
 import net.sf.json.JSONSerializer;
 
+import com.fasterxml.jackson.core.JsonParser;
+
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
 import org.apache.http.HttpEntity;
@@ -52,6 +62,7 @@ import org.apache.http.entity.mime.MultipartEntity;
 import org.apache.http.entity.mime.content.ByteArrayBody;
 import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.InputStreamBody;
+import org.apache.http.util.EntityUtils;
 
 /**
  * A simple REST client that speaks JSON.
@@ -61,6 +72,45 @@ public class RestClient {
     private HttpClient httpClient = null;
     private ICredentials creds = null;
     private URI uri = null;
+    private RateLimiter rateLimiter = new RateLimiter(new RateLimiter.Options());
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final AtomicLong decodedBytes = new AtomicLong();
+    private final ResourceCache resourceCache = new ResourceCache();
+
+    /**
+     * Counts the bytes read through it.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        private CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count.addAndGet(read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count.addAndGet(skipped);
+            return skipped;
+        }
+    }
 
     /**
      * Creates a REST client instance with a URI.
@@ -120,41 +170,79 @@ public class RestClient {
         return ub.build();
     }
 
-    private JSON request(HttpRequestBase req) throws RestException, IOException {
+    /**
+     * Sends the request once the rate limiter allows it. A GET answered with
+     * 429 or 503 is retried after the delay the server asks for or a
+     * jittered backoff. The caller must release the returned response.
+     */
+    private HttpResponse execute(HttpRequestBase req) throws IOException {
         req.addHeader("Accept", "application/json");
+        req.addHeader("Accept-Encoding", "gzip, deflate");
 
         if (creds != null)
             creds.authenticate(req);
 
-        HttpResponse resp = httpClient.execute(req);
-        HttpEntity ent = resp.getEntity();
-        StringBuilder result = new StringBuilder();
+        for (int attempt = 0; ; attempt++) {
+            acquire();
+            HttpResponse resp = null;
 
-        if (ent != null) {
-            String encoding = null;
-            if (ent.getContentEncoding() != null) {
-                encoding = ent.getContentEncoding().getValue();
+            try {
+                resp = httpClient.execute(req);
+            } finally {
+                if (resp == null)
+                    rateLimiter.release(null);
             }
-            
-            if (encoding == null) {
-                Header contentTypeHeader = resp.getFirstHeader("Content-Type");
-                HeaderElement[] contentTypeElements = contentTypeHeader.getElements();
-                for (HeaderElement he : contentTypeElements) {
-                    NameValuePair nvp = he.getParameterByName("charset");
-                    if (nvp != null) {
-                        encoding = nvp.getValue();
-                    }
-                }
+
+            int status = resp.getStatusLine().getStatusCode();
+            if (!RateLimiter.isThrottled(status) || !req.getMethod().equals(HttpGet.METHOD_NAME)
+                    || attempt >= rateLimiter.getMaxRetries())
+                return resp;
+
+            long delay = rateLimiter.getRetryDelay(resp, attempt);
+            try {
+                EntityUtils.consume(resp.getEntity());
+            } catch (IOException ex) {
+                req.abort();
+                throw ex;
+            } finally {
+                rateLimiter.release(resp);
             }
-            
-            InputStreamReader isr =  encoding != null ?
-                new InputStreamReader(ent.getContent(), encoding) :
-                new InputStreamReader(ent.getContent());
-            BufferedReader br = new BufferedReader(isr);
-            String line = "";
 
-            while ((line = br.readLine()) != null)
-                result.append(line);
+            sleep(delay);
+        }
+    }
+
+    private void acquire() throws InterruptedIOException {
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off");
+        }
+    }
+
+    private JSON request(HttpRequestBase req) throws RestException, IOException {
+        HttpResponse resp = execute(req);
+        HttpEntity ent = resp.getEntity();
+        StringBuilder result = new StringBuilder();
+
+        try {
+            readEntity(resp, ent, result);
+        } catch (IOException ex) {
+            /* don't hand a half-read connection back to the pool */
+            req.abort();
+            throw ex;
+        } finally {
+            rateLimiter.release(resp);
         }
 
         StatusLine sl = resp.getStatusLine();
@@ -165,6 +253,141 @@ public class RestClient {
         return result.length() > 0 ? JSONSerializer.toJSON(result.toString()): null;
     }
 
+    private <T> T request(HttpRequestBase req, IJsonStreamHandler<T> handler)
+        throws RestException, IOException {
+
+        HttpResponse resp = execute(req);
+        HttpEntity ent = resp.getEntity();
+        StatusLine sl = resp.getStatusLine();
+        boolean consumed = false;
+
+        try {
+            if (sl.getStatusCode() >= 300) {
+                StringBuilder result = new StringBuilder();
+                readEntity(resp, ent, result);
+                consumed = true;
+                throw new RestException(sl.getReasonPhrase(), sl.getStatusCode(), result.toString());
+            }
+
+            if (ent == null) {
+                consumed = true;
+                return null;
+            }
+
+            String charset = getCharset(resp);
+            JsonParser parser = charset != null ?
+                JsonStream.FACTORY.createParser(new InputStreamReader(getContent(ent), charset)) :
+                JsonStream.FACTORY.createParser(getContent(ent));
+
+            try {
+                T result = handler.handle(parser);
+                EntityUtils.consume(ent);
+                consumed = true;
+                return result;
+            } finally {
+                parser.close();
+            }
+        } finally {
+            /* don't hand a half-read connection back to the pool */
+            if (!consumed)
+                req.abort();
+
+            rateLimiter.release(resp);
+        }
+    }
+
+    private static String getCharset(HttpResponse resp) {
+        Header contentTypeHeader = resp.getFirstHeader("Content-Type");
+
+        if (contentTypeHeader == null)
+            return null;
+
+        String charset = null;
+
+        for (HeaderElement he : contentTypeHeader.getElements()) {
+            NameValuePair nvp = he.getParameterByName("charset");
+            if (nvp != null) {
+                charset = nvp.getValue();
+            }
+        }
+
+        return charset;
+    }
+
+    /**
+     * Reads the response body as text. The charset comes from the
+     * Content-Type header, JSON is UTF-8 when it has none.
+     */
+    private void readEntity(HttpResponse resp, HttpEntity ent, StringBuilder result)
+        throws IOException {
+
+        if (ent != null) {
+            String charset = getCharset(resp);
+            InputStreamReader isr = new InputStreamReader(getContent(ent), charset != null ? charset : "UTF-8");
+            BufferedReader br = new BufferedReader(isr);
+            char[] buffer = new char[8192];
+            int read;
+
+            /* a gzip stream ends before the body does, closing it releases the connection */
+            try {
+                while ((read = br.read(buffer)) != -1)
+                    result.append(buffer, 0, read);
+            } finally {
+                br.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the response body, decompressing a gzip or deflate encoded one
+     * and counting the bytes before and after decoding.
+     */
+    private InputStream getContent(HttpEntity ent) throws IOException {
+        InputStream in = new CountingInputStream(ent.getContent(), receivedBytes);
+        Header contentEncoding = ent.getContentEncoding();
+
+        if (contentEncoding != null) {
+            String encoding = contentEncoding.getValue().trim().toLowerCase(Locale.ENGLISH);
+
+            if (encoding.equals("gzip") || encoding.equals("x-gzip"))
+                in = new GZIPInputStream(in, 8192);
+            else if (encoding.equals("deflate"))
+                in = inflate(in);
+        }
+
+        return new CountingInputStream(in, decodedBytes);
+    }
+
+    /**
+     * Inflates a deflate encoded body. The encoding is meant to be zlib
+     * wrapped, but some servers send raw deflate, so the zlib header is
+     * checked first.
+     */
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream pb = new PushbackInputStream(in, 2);
+        int b0 = pb.read();
+        int b1 = b0 >= 0 ? pb.read() : -1;
+
+        if (b1 >= 0)
+            pb.unread(b1);
+        if (b0 >= 0)
+            pb.unread(b0);
+
+        boolean zlib = b1 >= 0 && (b0 & 0x0F) == 8 && ((b0 << 8) | b1) % 31 == 0;
+        final Inflater inflater = new Inflater(!zlib);
+
+        return new InflaterInputStream(pb, inflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
     private JSON request(HttpEntityEnclosingRequestBase req, String payload)
         throws RestException, IOException {
 
@@ -273,6 +496,24 @@ public class RestClient {
         return request(new HttpGet(uri));
     }
 
+    /**
+     * Executes an HTTP GET with the given URI and hands the response body to
+     * the handler as a stream of JSON tokens, so the body is never held in
+     * memory as a whole.
+     *
+     * @param uri Full URI of the remote endpoint
+     * @param handler Consumer of the response body
+     *
+     * @return the result of the handler or null when there's no content
+     * returned
+     *
+     * @throws RestException when an HTTP-level error occurs
+     * @throws IOException when an error reading the response occurs
+     */
+    public <T> T get(URI uri, IJsonStreamHandler<T> handler) throws RestException, IOException {
+        return request(new HttpGet(uri), handler);
+    }
+
     /**
      * Executes an HTTP GET with the given path.
      *
@@ -444,6 +685,54 @@ public class RestClient {
         return put(buildURI(path), payload);
     }
     
+    /**
+     * Returns the number of response body bytes received, as sent over the
+     * wire before decompression.
+     *
+     * @return received byte count
+     */
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+
+    /**
+     * Returns the number of response body bytes after decompression. The
+     * ratio to {@link #getReceivedBytes()} shows what compression saves.
+     *
+     * @return decoded byte count
+     */
+    public long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    /**
+     * Exposes the rate limiter pacing the requests.
+     *
+     * @return the rateLimiter property
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Replaces the rate limiter, e.g. to change its settings. Must not be
+     * called while requests are in progress.
+     *
+     * @param rateLimiter the new rate limiter
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Exposes the cache of resources shared by the deserialised issues.
+     *
+     * @return the resourceCache property
+     */
+    public ResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
     /**
      * Exposes the http client.
      *
@@ -19,10 +19,15 @@
 
 package net.rcarz.jiraclient;
 
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.sf.json.JSON;
+import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
 /**
@@ -30,6 +35,23 @@ import net.sf.json.JSONObject;
  */
 public class WorkLog extends Resource {
 
+    /**
+     * Maximum number of work logs the bulk endpoint returns per request.
+     */
+    public static final int BULK_LIMIT = 1000;
+
+    /**
+     * IDs of work logs changed within a time span.
+     */
+    public static class ChangedIds {
+        /** Start of the span, milliseconds since the epoch. */
+        public long since = 0;
+        /** End of the span, use it as the start of the next query. */
+        public long until = 0;
+        public List<Long> ids = null;
+    }
+
+    private String issueId = null;
     private User author = null;
     private String comment = null;
     private Date created = null;
@@ -57,6 +79,7 @@ public class WorkLog extends Resource {
 
         self = Field.getString(map.get("self"));
         id = Field.getString(map.get("id"));
+        issueId = Field.getString(map.get("issueId"));
         author = Field.getResource(User.class, map.get("author"), restclient);
         comment = Field.getString(map.get("comment"));
         created = Field.getDate(map.get("created"));
@@ -95,11 +118,137 @@ public class WorkLog extends Resource {
         return new WorkLog(restclient, (JSONObject)result);
     }
 
+    /**
+     * Retrieves the IDs of all work logs created or updated since the given
+     * time, following the pages of the result until the last one.
+     *
+     * @param restclient REST client instance
+     * @param since Milliseconds since the epoch
+     *
+     * @return the changed work log IDs
+     *
+     * @throws JiraException when the retrieval fails
+     */
+    public static ChangedIds getUpdatedIds(RestClient restclient, long since)
+        throws JiraException {
+
+        return getChangedIds(restclient, "updated", since);
+    }
+
+    /**
+     * Retrieves the IDs of all work logs deleted since the given time,
+     * following the pages of the result until the last one.
+     *
+     * @param restclient REST client instance
+     * @param since Milliseconds since the epoch
+     *
+     * @return the deleted work log IDs
+     *
+     * @throws JiraException when the retrieval fails
+     */
+    public static ChangedIds getDeletedIds(RestClient restclient, long since)
+        throws JiraException {
+
+        return getChangedIds(restclient, "deleted", since);
+    }
+
+    private static ChangedIds getChangedIds(RestClient restclient, String change, long since)
+        throws JiraException {
+
+        ChangedIds result = new ChangedIds();
+        result.since = since;
+        result.until = since;
+        result.ids = new ArrayList<Long>();
+
+        boolean lastPage = false;
+
+        while (!lastPage) {
+            JSON json = null;
+
+            try {
+                Map<String, String> params = new HashMap<String, String>();
+                params.put("since", String.valueOf(result.until));
+                URI uri = restclient.buildURI(getBaseUri() + "worklog/" + change, params);
+                json = restclient.get(uri);
+            } catch (Exception ex) {
+                throw new JiraException("Failed to retrieve " + change + " work logs", ex);
+            }
+
+            if (!(json instanceof JSONObject))
+                throw new JiraException("JSON payload is malformed");
+
+            Map map = (Map)json;
+            Object values = map.get("values");
+
+            if (values instanceof JSONArray) {
+                for (Object v : (JSONArray)values) {
+                    Object wid = ((Map)v).get("worklogId");
+
+                    if (wid instanceof Number)
+                        result.ids.add(((Number)wid).longValue());
+                }
+            }
+
+            Object until = map.get("until");
+            lastPage = Field.getBoolean(map.get("lastPage")) || !(until instanceof Number)
+                || ((Number)until).longValue() <= result.until;
+
+            if (until instanceof Number)
+                result.until = Math.max(result.until, ((Number)until).longValue());
+        }
+
+        return result;
+    }
+
+    /**
+     * Retrieves work logs by their IDs, in batches of {@link #BULK_LIMIT}.
+     * Work logs that don't exist or aren't visible are skipped.
+     *
+     * @param restclient REST client instance
+     * @param ids Work log IDs
+     *
+     * @return the work logs, each one knows the ID of its issue
+     *
+     * @throws JiraException when the retrieval fails
+     */
+    public static List<WorkLog> getByIds(RestClient restclient, List<Long> ids)
+        throws JiraException {
+
+        List<WorkLog> results = new ArrayList<WorkLog>(ids.size());
+
+        for (int i = 0; i < ids.size(); i += BULK_LIMIT) {
+            JSONObject req = new JSONObject();
+            req.put("ids", JSONArray.fromObject(ids.subList(i, Math.min(i + BULK_LIMIT, ids.size()))));
+            JSON json = null;
+
+            try {
+                json = restclient.post(getBaseUri() + "worklog/list", req);
+            } catch (Exception ex) {
+                throw new JiraException("Failed to retrieve work logs", ex);
+            }
+
+            if (!(json instanceof JSONArray))
+                throw new JiraException("JSON payload is malformed");
+
+            results.addAll(Field.getResourceArray(WorkLog.class, json, restclient));
+        }
+
+        return results;
+    }
+
     @Override
     public String toString() {
         return created + " by " + author;
     }
 
+    /**
+     * Internal JIRA ID of the issue, only known for work logs retrieved in
+     * bulk.
+     */
+    public String getIssueId() {
+        return issueId;
+    }
+
     public User getAuthor() {
         return author;
     }
@@ -0,0 +1,92 @@
+package com.jira.timesheet;
+
+import static org.junit.Assert.assertEquals;
+
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+/**
+ * Checks the cells of {@link IssuesStats}: days before the epoch, issues counted once per cell in the order they were
+ * added, and the cell order.
+ */
+public class IssuesStatsTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    @Test
+    public void epochDaysAreTakenInTheZone() {
+        IssuesStats utc = new IssuesStats(DateTimeZone.UTC);
+        IssuesStats prague = new IssuesStats(DateTimeZone.forOffsetHours(2));
+
+        assertEquals(0, utc.getEpochDay(0));
+        assertEquals(-1, utc.getEpochDay(-1));
+        assertEquals(-365, utc.getEpochDay(-365 * DAY));
+        assertEquals(0, prague.getEpochDay(-60 * 60 * 1000));
+        assertEquals(1, prague.getEpochDay(DAY - 60 * 60 * 1000));
+    }
+
+    @Test
+    public void daysBeforeTheEpochAreCellsOfTheirOwn() {
+        IssuesStats stats = new IssuesStats(DateTimeZone.UTC);
+        stats.addWorkLog("anna", "K-1", -1, 60);
+        stats.addWorkLog("anna", "K-1", 0, 120);
+        stats.addWorkLog("anna", "K-1", -1, 30);
+
+        assertEquals(2, stats.size());
+        int[] cells = stats.getSortedCells();
+        assertEquals(-1, stats.getCellDay(cells[0]));
+        assertEquals(90, stats.getLoggedSecondsOfWork(cells[0]));
+        assertEquals(0, stats.getCellDay(cells[1]));
+        assertEquals(120, stats.getLoggedSecondsOfWork(cells[1]));
+    }
+
+    @Test
+    public void issueIsListedOncePerCellInTheOrderAdded() {
+        IssuesStats stats = new IssuesStats(DateTimeZone.UTC);
+        stats.addWorkLog("anna", "K-2", 10, 60);
+        stats.addWorkLog("anna", "K-1", 10, 60);
+        stats.addWorkLog("anna", "K-2", 10, 60);
+        stats.addWorkLog("anna", "K-3", 10, 60);
+        stats.addWorkLog("bob", "K-2", 10, 60);
+
+        int[] cells = stats.getSortedCells();
+        assertEquals("K-2, K-1, K-3", stats.getIssues(cells[0]));
+        assertEquals(240, stats.getLoggedSecondsOfWork(cells[0]));
+        assertEquals("K-2", stats.getIssues(cells[1]));
+        assertEquals(60, stats.getLoggedSecondsOfWork(cells[1]));
+    }
+
+    @Test
+    public void cellsAreSortedByUsernameAndDay() {
+        IssuesStats stats = new IssuesStats(DateTimeZone.UTC);
+        stats.addWorkLog("carl", "K-1", 5, 1);
+        stats.addWorkLog("anna", "K-1", 7, 1);
+        stats.addWorkLog("bob", "K-1", -3, 1);
+        stats.addWorkLog("anna", "K-1", -2, 1);
+        stats.addWorkLog("carl", "K-1", 4, 1);
+        stats.addWorkLog("anna", "K-1", 6, 1);
+
+        StringBuilder order = new StringBuilder();
+        for (int cell : stats.getSortedCells()) {
+            order.append(stats.getUsername(cell)).append(stats.getCellDay(cell)).append(' ');
+        }
+        assertEquals("anna-2 anna6 anna7 bob-3 carl4 carl5 ", order.toString());
+    }
+
+    @Test
+    public void columnsGrowPastTheirInitialSize() {
+        IssuesStats stats = new IssuesStats(DateTimeZone.UTC);
+        for (int day = 0; day < 600; day++) {
+            stats.addWorkLog("anna", "K-" + day, day, day);
+            stats.addWorkLog("anna", "K-" + (day + 1), day, 1);
+        }
+
+        assertEquals(600, stats.size());
+        int[] cells = stats.getSortedCells();
+        for (int day = 0; day < 600; day++) {
+            assertEquals(day, stats.getCellDay(cells[day]));
+            assertEquals(day + 1, stats.getLoggedSecondsOfWork(cells[day]));
+            assertEquals("K-" + day + ", K-" + (day + 1), stats.getIssues(cells[day]));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.jira.timesheet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks the open addressing of {@link LongLongMap}: colliding keys, growing and keys made of negative ints.
+ */
+public class LongLongMapTest {
+
+    @Test
+    public void addsToSumsAndMissingKeysAreZero() {
+        LongLongMap map = new LongLongMap();
+        map.add(7, 5);
+        map.add(7, -2);
+        map.add(0, 1);
+
+        assertEquals(3, map.get(7));
+        assertEquals(1, map.get(0));
+        assertEquals(0, map.get(8));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void collidingKeysKeepTheirOwnSums() {
+        // keys hashed to the same slot of the initial 16 slots, found with the hash of the map
+        List<Long> colliding = new ArrayList<Long>();
+        for (long key = -1000; colliding.size() < 6; key++) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            if (((int) (hash ^ (hash >>> 32)) & 15) == 3) {
+                colliding.add(key);
+            }
+        }
+        LongLongMap map = new LongLongMap(8);
+        for (int i = 0; i < 5; i++) {
+            map.add(colliding.get(i), i + 1);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, map.get(colliding.get(i)));
+        }
+        assertEquals(0, map.get(colliding.get(5)));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    public void growKeepsAllSums() {
+        LongLongMap map = new LongLongMap(1);
+        for (long key = -500; key < 500; key++) {
+            map.add(key * 31, key);
+        }
+        for (long key = -500; key < 500; key++) {
+            map.add(key * 31, 1);
+        }
+
+        assertEquals(1000, map.size());
+        for (long key = -500; key < 500; key++) {
+            assertEquals(key + 1, map.get(key * 31));
+        }
+    }
+
+    @Test
+    public void sortedKeysAreAscending() {
+        LongLongMap map = new LongLongMap();
+        long[] keys = { 42, -1, Long.MAX_VALUE, 0, Long.MIN_VALUE + 1, -42 };
+        for (long key : keys) {
+            map.add(key, 1);
+        }
+
+        assertArrayEquals(new long[] { Long.MIN_VALUE + 1, -42, -1, 0, 42, Long.MAX_VALUE }, map.sortedKeys());
+    }
+
+    @Test
+    public void combinedKeysSplitIntoNegativeInts() {
+        int[] ints = { 0, 1, -1, -719528, Integer.MIN_VALUE, Integer.MAX_VALUE };
+        LongLongMap map = new LongLongMap();
+        for (int high : ints) {
+            for (int low : ints) {
+                long key = LongLongMap.key(high, low);
+                assertEquals(high, LongLongMap.high(key));
+                assertEquals(low, LongLongMap.low(key));
+                if (key != Long.MIN_VALUE) {
+                    map.add(key, 1);
+                }
+            }
+        }
+
+        // every pair but (MIN_VALUE, 0) is a key of its own
+        assertEquals(ints.length * ints.length - 1, map.size());
+        assertEquals(1, map.get(LongLongMap.key(0, -1)));
+        assertEquals(1, map.get(LongLongMap.key(-1, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minValueIsNoKey() {
+        new LongLongMap().add(Long.MIN_VALUE, 1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.jira.timesheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import net.rcarz.jiraclient.RateLimiter;
+
+/**
+ * Checks that {@link TaskExecutors#withPermits(ExecutorService, Semaphore)} bounds the running tasks without letting
+ * tasks waiting for each other deadlock. The virtual thread check only runs on a JVM that has them.
+ */
+public class TaskExecutorsTest {
+
+    @Test(timeout = 10000)
+    public void taskWaitingForAnotherGivesItsPermitBack() throws Exception {
+        final ExecutorService executor = TaskExecutors.withPermits(Executors.newCachedThreadPool(), new Semaphore(1));
+        try {
+            Future<String> outer = executor.submit(new Callable<String>() {
+                public String call() throws Exception {
+                    return executor.submit(new Callable<String>() {
+                        public String call() {
+                            return "inner";
+                        }
+                    }).get();
+                }
+            });
+            assertEquals("inner", outer.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void runsBoundedOnVirtualThreads() throws Exception {
+        ExecutorService virtual = TaskExecutors.newVirtualThreadPerTaskExecutor();
+        Assume.assumeTrue("no virtual threads on Java " + System.getProperty("java.version"), virtual != null);
+
+        final int permits = 4;
+        final ExecutorService executor = TaskExecutors.withPermits(virtual, new Semaphore(permits));
+        RateLimiter.Options options = new RateLimiter.Options();
+        options.maxConcurrency = 2;
+        final RateLimiter limiter = new RateLimiter(options);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        try {
+            List<Future<Boolean>> issues = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 100; i++) {
+                issues.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        boolean virtual = isVirtual(Thread.currentThread());
+                        List<Future<Boolean>> pages = new ArrayList<Future<Boolean>>();
+                        for (int page = 0; page < 3; page++) {
+                            pages.add(executor.submit(new Callable<Boolean>() {
+                                public Boolean call() throws Exception {
+                                    raise(maxRunning, running.incrementAndGet());
+                                    limiter.acquire();
+                                    try {
+                                        raise(maxInFlight, inFlight.incrementAndGet());
+                                        Thread.sleep(1);
+                                        inFlight.decrementAndGet();
+                                    }
+                                    finally {
+                                        limiter.release(null);
+                                        running.decrementAndGet();
+                                    }
+                                    return isVirtual(Thread.currentThread());
+                                }
+                            }));
+                        }
+                        for (Future<Boolean> page : pages) {
+                            virtual &= page.get();
+                        }
+                        return virtual;
+                    }
+                }));
+            }
+            for (Future<Boolean> issue : issues) {
+                assertTrue("task ran on a platform thread", issue.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertTrue("more than " + permits + " tasks ran at once", maxRunning.get() <= permits);
+        assertTrue("more than 2 requests were in flight", maxInFlight.get() <= 2);
+    }
+
+    private static void raise(AtomicInteger max, int value) {
+        int current;
+        do {
+            current = max.get();
+        }
+        while (value > current && !max.compareAndSet(current, value));
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+}
@@ -0,0 +1,196 @@
+package com.jira.timesheet;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.rcarz.jiraclient.Field;
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.WorkLog;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Pins the tables of {@link TimesheetSummary} and checks that they add up to the timesheet rows written with it.
+ */
+public class TimesheetSummaryTest {
+
+    private File dir;
+    private File timesheet;
+    private final TimesheetSummary summary = new TimesheetSummary();
+    private final StringWriter rows = new StringWriter();
+
+    @Before
+    public void writeRows() throws IOException {
+        dir = Files.createTempDirectory("summary").toFile();
+        timesheet = new File(dir, "timesheet.txt");
+
+        Issue web1 = issue("WEB-1", "Web", "Bug");
+        Issue web2 = issue("WEB-2", "Web", "Task");
+        Issue app1 = issue("APP-1", "App", "Bug");
+
+        TimesheetWriter writer = new TimesheetWriter(rows, summary);
+        // Sunday 22 and Monday 23 May 2016 are in different weeks, Wednesday 31 Dec 1969 is before the epoch
+        writer.writeRow(web1, workLog("carl", 2016, 5, 23, 3600));
+        writer.writeRow(app1, workLog("anna", 2016, 5, 22, 1800));
+        writer.writeRow(web2, workLog("anna", 2016, 5, 23, 900));
+        writer.writeRow(web1, workLog("anna", 2016, 5, 23, 2700));
+        writer.writeRow(web2, workLog("anna", 2016, 5, 23, 900));
+        writer.writeRow(app1, workLog("carl", 2016, 5, 29, 7200));
+        writer.writeRow(web1, workLog("bob", 2016, 5, 30, 5400));
+        writer.writeRow(app1, workLog("bob", 1969, 12, 31, 3600));
+        writer.close();
+
+        summary.write(timesheet);
+    }
+
+    @After
+    public void deleteFiles() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void userDayTable() throws IOException {
+        assertEquals(Arrays.asList(
+            "Username\tDate\tTime Spent\tIssues",
+            "anna\t05/22/2016\t0.5\tAPP-1",
+            "anna\t05/23/2016\t1.25\tWEB-2, WEB-1",
+            "bob\t12/31/1969\t1.0\tAPP-1",
+            "bob\t05/30/2016\t1.5\tWEB-1",
+            "carl\t05/23/2016\t1.0\tWEB-1",
+            "carl\t05/29/2016\t2.0\tAPP-1"), read("user-day"));
+    }
+
+    @Test
+    public void userProjectTable() throws IOException {
+        assertEquals(Arrays.asList(
+            "Username\tProject\tTime Spent",
+            "anna\tApp\t0.5",
+            "anna\tWeb\t1.25",
+            "bob\tApp\t1.0",
+            "bob\tWeb\t1.5",
+            "carl\tApp\t2.0",
+            "carl\tWeb\t1.0"), read("user-project"));
+    }
+
+    @Test
+    public void projectTypeTable() throws IOException {
+        assertEquals(Arrays.asList(
+            "Project\tType\tTime Spent",
+            "App\tBug\t3.5",
+            "Web\tBug\t3.25",
+            "Web\tTask\t0.5"), read("project-type"));
+    }
+
+    @Test
+    public void weekTableStartsOnMondays() throws IOException {
+        assertEquals(Arrays.asList(
+            "Week\tTime Spent",
+            "12/29/1969\t1.0",
+            "05/16/2016\t0.5",
+            "05/23/2016\t4.25",
+            "05/30/2016\t1.5"), read("week"));
+    }
+
+    @Test
+    public void tablesAddUpToTheRows() throws IOException {
+        Map<String, Long> userDays = new TreeMap<String, Long>();
+        Map<String, Long> userProjects = new TreeMap<String, Long>();
+        Map<String, Long> projectTypes = new TreeMap<String, Long>();
+        Map<String, Long> weeks = new TreeMap<String, Long>();
+        long total = 0;
+        List<String> lines = Arrays.asList(rows.toString().split("\n"));
+        for (String line : lines.subList(1, lines.size())) {
+            String[] row = line.split("\t");
+            long hundredths = hundredths(row[5]);
+            LocalDate date = DateTimeFormat.forPattern("MM/dd/yyyy").parseLocalDate(row[6]);
+            LocalDate monday = date.withDayOfWeek(DateTimeConstants.MONDAY);
+            add(userDays, row[4] + "\t" + row[6], hundredths);
+            add(userProjects, row[4] + "\t" + row[0], hundredths);
+            add(projectTypes, row[0] + "\t" + row[1], hundredths);
+            add(weeks, monday.toString("MM/dd/yyyy"), hundredths);
+            total += hundredths;
+        }
+
+        assertEquals(userDays, totals(read("user-day"), 2));
+        assertEquals(userProjects, totals(read("user-project"), 2));
+        assertEquals(projectTypes, totals(read("project-type"), 2));
+        assertEquals(weeks, totals(read("week"), 1));
+        assertEquals(total, sum(totals(read("week"), 1)));
+        assertEquals(total, sum(totals(read("user-project"), 2)));
+        assertEquals(total, sum(totals(read("project-type"), 2)));
+    }
+
+    private List<String> read(String suffix) throws IOException {
+        return Files.readAllLines(new File(dir, "timesheet-" + suffix + ".txt").toPath(), Charset.forName("UTF-8"));
+    }
+
+    /**
+     * @return Time spent in hundredths of an hour by the first columns of a table.
+     */
+    private static Map<String, Long> totals(List<String> table, int keyColumns) {
+        Map<String, Long> totals = new TreeMap<String, Long>();
+        for (String line : table.subList(1, table.size())) {
+            String[] row = line.split("\t");
+            StringBuilder key = new StringBuilder(row[0]);
+            for (int i = 1; i < keyColumns; i++) {
+                key.append('\t').append(row[i]);
+            }
+            add(totals, key.toString(), hundredths(row[keyColumns]));
+        }
+        return totals;
+    }
+
+    private static void add(Map<String, Long> totals, String key, long hundredths) {
+        Long sum = totals.get(key);
+        totals.put(key, sum == null ? hundredths : sum + hundredths);
+    }
+
+    private static long sum(Map<String, Long> totals) {
+        long sum = 0;
+        for (long value : totals.values()) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static long hundredths(String hours) {
+        String[] parts = hours.split("\\.");
+        String fraction = (parts[1] + "0").substring(0, 2);
+        return Long.parseLong(parts[0]) * 100 + Long.parseLong(fraction);
+    }
+
+    private static Issue issue(String key, String project, String type) {
+        return Field.getResource(Issue.class, JSONSerializer.toJSON("{\"id\":\"" + key + "\",\"key\":\"" + key
+            + "\",\"fields\":{\"summary\":\"Summary of " + key + "\",\"project\":{\"id\":\"" + project
+            + "\",\"name\":\"" + project + "\"},\"issuetype\":{\"id\":\"" + type + "\",\"name\":\"" + type + "\"}}}"),
+            null);
+    }
+
+    /**
+     * @return Worklog started at 10:00 of the day in the default time zone, the zone the dates are reported in.
+     */
+    private static WorkLog workLog(String username, int year, int month, int day, int seconds) {
+        String started = Field.DATETIME_FORMATTER.print(new DateTime(year, month, day, 10, 0).getMillis());
+        return Field.getResource(WorkLog.class, JSONSerializer.toJSON("{\"id\":\"1\",\"author\":{\"name\":\""
+            + username + "\"},\"started\":\"" + started + "\",\"timeSpentSeconds\":" + seconds + "}"), null);
+    }
+}
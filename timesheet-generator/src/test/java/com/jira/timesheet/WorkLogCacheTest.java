@@ -0,0 +1,91 @@
+package com.jira.timesheet;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.rcarz.jiraclient.Field;
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.WorkLog;
+import net.sf.json.JSONSerializer;
+
+/**
+ * Checks that issues and worklogs come back from the cache, in memory and after a save and load, as the search parsed
+ * them, in particular strings that json-lib could mistake for JSON.
+ */
+public class WorkLogCacheTest {
+
+    private static final String[] STRINGS = {
+        "plain", "", "null", "true", "12", "[1,2]", "{\"x\":1}", "\"q\"", "function(){return 1;}"
+    };
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("worklogs", ".json");
+        file.delete();
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void stringsSurviveTheCacheAsSearched() throws IOException {
+        for (String s : STRINGS) {
+            String q = quote(s);
+            Issue issue = Field.getResource(Issue.class, JSONSerializer.toJSON("{\"id\":\"1\",\"key\":" + q
+                + ",\"fields\":{\"summary\":" + q + ",\"project\":{\"id\":\"2\",\"key\":\"P\",\"name\":" + q
+                + "},\"issuetype\":{\"id\":\"3\",\"name\":" + q + "}}}"), null);
+            WorkLog workLog = Field.getResource(WorkLog.class, JSONSerializer.toJSON("{\"id\":\"9\",\"issueId\":\"1\","
+                + "\"author\":{\"name\":" + q + ",\"displayName\":" + q + "},\"started\":\"2016-05-23T10:00:00.000+0000\","
+                + "\"timeSpent\":" + q + ",\"timeSpentSeconds\":60}"), null);
+            String expected = describe(issue, workLog);
+
+            WorkLogCache cache = new WorkLogCache(file);
+            cache.putIssue(issue);
+            cache.putWorkLog(workLog);
+            assertEquals(s, expected, describe(cache.getIssue("1", null), cache.getWorkLogs("1", null).get(0)));
+
+            cache.save();
+            WorkLogCache loaded = new WorkLogCache(file);
+            loaded.load();
+            assertEquals(s, expected, describe(loaded.getIssue("1", null), loaded.getWorkLogs("1", null).get(0)));
+        }
+    }
+
+    @Test
+    public void loadKeepsTheWatermarkAndWorkLogs() throws IOException {
+        WorkLog workLog = Field.getResource(WorkLog.class, JSONSerializer.toJSON("{\"id\":\"9\",\"issueId\":\"1\","
+            + "\"started\":\"2016-05-23T10:00:00.000+0000\",\"timeSpent\":\"1m\",\"timeSpentSeconds\":60}"), null);
+        WorkLogCache cache = new WorkLogCache(file);
+        cache.putWorkLog(workLog);
+        cache.setSynced(new Date(1000), 5000);
+        cache.save();
+
+        WorkLogCache loaded = new WorkLogCache(file);
+        loaded.load();
+
+        assertEquals(1, loaded.size());
+        assertEquals(5000, loaded.getSyncStart(new Date(2000)));
+        assertEquals(500, loaded.getSyncStart(new Date(500)));
+    }
+
+    private static String describe(Issue issue, WorkLog workLog) {
+        return issue.getKey() + "|" + issue.getSummary() + "|" + issue.getProject().getName() + "|"
+            + issue.getIssueType().getName() + "|" + workLog.getAuthor().getName() + "|"
+            + workLog.getAuthor().getDisplayName() + "|" + workLog.getTimeSpent() + "|" + workLog.getStarted().getTime();
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,64 @@
+package net.rcarz.jiraclient;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link JsonStream} builds the same structure as json-lib's own parser, in particular for strings that
+ * json-lib could mistake for JSON.
+ */
+public class JsonStreamTest {
+
+    private static final String[] STRINGS = {
+        "plain", "", "null", "NULL", "null ", "true", "12", "[1,2]", "[]", "{}", "{\"x\":1}", "[\"a\"]",
+        "{\"a\":\"b\\\"c\"}", "[oops", " [1]", "\"", "\"q\"", "a\"b", "function(){return 1;}", "function (a) { }"
+    };
+
+    @Test
+    public void stringsInObjectsAndArraysMatchJsonSerializer() throws IOException {
+        for (String s : STRINGS) {
+            String q = quote(s);
+            String json = "{\"s\":" + q + ",\"a\":[" + q + "],\"o\":{\"n\":" + q + "},\"aa\":[[" + q + "]]}";
+
+            JSONObject expected = (JSONObject) JSONSerializer.toJSON(json);
+            JSONObject actual = (JSONObject) JsonStream.readValue(JsonStream.FACTORY.createParser(json));
+
+            assertSame(s, expected.get("s"), actual.get("s"));
+            assertSame(s, expected.getJSONArray("a").get(0), actual.getJSONArray("a").get(0));
+            assertSame(s, expected.getJSONObject("o").get("n"), actual.getJSONObject("o").get("n"));
+            assertSame(s, ((JSONArray) expected.getJSONArray("aa").get(0)).get(0),
+                    ((JSONArray) actual.getJSONArray("aa").get(0)).get(0));
+            assertEquals(s, expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void jsonLookingSummaryStaysAString() throws IOException {
+        for (String s : new String[] { "null", "[1,2]", "{\"x\":1}" }) {
+            String json = "{\"summary\":" + quote(s) + "}";
+            JSONObject actual = (JSONObject) JsonStream.readValue(JsonStream.FACTORY.createParser(json));
+
+            assertEquals(Field.getString(((JSONObject) JSONSerializer.toJSON(json)).get("summary")),
+                    Field.getString(actual.get("summary")));
+        }
+    }
+
+    /**
+     * Quotes a JSON string, unlike JSONUtils.quote also when it looks like a function.
+     */
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void assertSame(String input, Object expected, Object actual) {
+        assertEquals(input, expected.getClass(), actual.getClass());
+        assertEquals(input, String.valueOf(expected), String.valueOf(actual));
+    }
+}
@@ -0,0 +1,217 @@
+package net.rcarz.jiraclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.impl.cookie.DateUtils;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+/**
+ * Checks the AIMD concurrency limit, the token bucket and the server delays of {@link RateLimiter}.
+ */
+public class RateLimiterTest {
+
+    private static RateLimiter.Options options(int maxConcurrency) {
+        RateLimiter.Options options = new RateLimiter.Options();
+        options.maxConcurrency = maxConcurrency;
+        return options;
+    }
+
+    private static HttpResponse response(int status, String... headers) {
+        HttpResponse resp = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+        for (int i = 0; i < headers.length; i += 2)
+            resp.addHeader(headers[i], headers[i + 1]);
+        return resp;
+    }
+
+    private static void request(RateLimiter limiter, HttpResponse resp) throws InterruptedException {
+        limiter.acquire();
+        limiter.release(resp);
+    }
+
+    @Test(timeout = 5000)
+    public void newLimiterIsNotPaused() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(options(20));
+
+        long start = System.nanoTime();
+        request(limiter, response(200));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void firstThrottledResponseHalvesTheLimit() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(options(20));
+
+        request(limiter, response(429));
+
+        assertEquals(10, limiter.getConcurrencyLimit());
+        assertEquals(1, limiter.getThrottled());
+    }
+
+    @Test
+    public void throttledResponsesOfOneRoundTripDecreaseOnce() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(options(20));
+
+        request(limiter, response(429));
+        request(limiter, response(503));
+
+        assertEquals(10, limiter.getConcurrencyLimit());
+        assertEquals(2, limiter.getThrottled());
+    }
+
+    @Test
+    public void limitStopsAtTheMinimum() throws InterruptedException {
+        RateLimiter.Options options = options(20);
+        options.minConcurrency = 3;
+        options.baseDelay = 1;
+        RateLimiter limiter = new RateLimiter(options);
+
+        for (int i = 0; i < 5; i++) {
+            request(limiter, response(429));
+            Thread.sleep(2);
+        }
+
+        assertEquals(3, limiter.getConcurrencyLimit());
+    }
+
+    @Test
+    public void successesGrowTheLimitByOnePerWindow() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(options(20));
+        request(limiter, response(429));
+
+        for (int i = 0; i < 10; i++)
+            request(limiter, response(200));
+        assertEquals(10, limiter.getConcurrencyLimit());
+
+        for (int i = 0; i < 10; i++)
+            request(limiter, response(200));
+        assertEquals(11, limiter.getConcurrencyLimit());
+
+        for (int i = 0; i < 1000; i++)
+            request(limiter, response(200));
+        assertEquals(20, limiter.getConcurrencyLimit());
+    }
+
+    @Test
+    public void failuresAndRedirectsLeaveTheLimit() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(options(20));
+        request(limiter, response(429));
+
+        for (int i = 0; i < 100; i++) {
+            request(limiter, response(500));
+            request(limiter, response(304));
+            request(limiter, null);
+        }
+
+        assertEquals(10, limiter.getConcurrencyLimit());
+    }
+
+    @Test(timeout = 5000)
+    public void requestsBeyondTheLimitWait() throws InterruptedException {
+        final RateLimiter limiter = new RateLimiter(options(2));
+        limiter.acquire();
+        limiter.acquire();
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread third = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    limiter.acquire();
+                    acquired.countDown();
+                } catch (InterruptedException ex) {
+                    /* test failed */
+                }
+            }
+        };
+        third.start();
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        limiter.release(response(200));
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void bucketPacesRequestsToTheRate() throws InterruptedException {
+        RateLimiter.Options options = options(20);
+        options.rate = 20;
+        options.burst = 1;
+        RateLimiter limiter = new RateLimiter(options);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++)
+            request(limiter, response(200));
+
+        /* the first request spends the burst, the other four wait 50 ms each */
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(180));
+    }
+
+    @Test
+    public void bucketFollowsTheServerFillRate() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(options(20));
+
+        request(limiter, response(200, "X-RateLimit-FillRate", "30", "X-RateLimit-Interval-Seconds", "3",
+            "X-RateLimit-Limit", "100", "X-RateLimit-Remaining", "50"));
+
+        assertEquals(10, limiter.getRate(), 0);
+    }
+
+    @Test(timeout = 5000)
+    public void retryAfterPausesAllRequests() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(options(20));
+        request(limiter, response(429, "Retry-After", "1"));
+
+        long start = System.nanoTime();
+        request(limiter, response(200));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    public void retryDelayFollowsRetryAfterSeconds() {
+        RateLimiter limiter = new RateLimiter(options(20));
+
+        long delay = limiter.getRetryDelay(response(429, "Retry-After", "2"), 0);
+
+        assertTrue(delay >= 2000 && delay < 2500);
+    }
+
+    @Test
+    public void retryDelayFollowsRetryAfterDate() {
+        RateLimiter limiter = new RateLimiter(options(20));
+        String date = DateUtils.formatDate(new Date(System.currentTimeMillis() + 10000));
+
+        long delay = limiter.getRetryDelay(response(429, "Retry-After", date), 0);
+
+        /* the date has whole seconds */
+        assertTrue(delay >= 8000 && delay < 10500);
+    }
+
+    @Test
+    public void retryDelayIsCappedByTheMaximum() {
+        RateLimiter limiter = new RateLimiter(options(20));
+
+        long delay = limiter.getRetryDelay(response(429, "Retry-After", "3600"), 0);
+
+        assertTrue(delay >= 60000 && delay < 60500);
+    }
+
+    @Test
+    public void retryDelayBacksOffWithoutServerTime() {
+        RateLimiter limiter = new RateLimiter(options(20));
+
+        for (int attempt = 0; attempt < 30; attempt++) {
+            long delay = limiter.getRetryDelay(response(503), attempt);
+            assertTrue(delay >= 0 && delay < Math.min(500L << Math.min(attempt, 20), 60000));
+        }
+    }
+}